@@ -96,14 +96,32 @@ public class LilWorlds extends JavaPlugin {
     public void onDisable() {
         LoggerUtils.info("Disabling LilWorlds...");
         
+        // Each manager on its own, one failing must not keep the others from saving
         if (worldManager != null) {
             LoggerUtils.info("Saving world configurations...");
-            worldManager.saveAllWorlds();
+            try {
+                worldManager.saveAllWorlds();
+            } catch (Exception e) {
+                LoggerUtils.error("Error saving world configurations", e);
+            }
         }
         
         if (portalManager != null) {
             LoggerUtils.info("Saving portal configurations...");
-            portalManager.savePortals();
+            try {
+                portalManager.shutdown();
+            } catch (Exception e) {
+                LoggerUtils.error("Error saving portal configurations", e);
+            }
+        }
+        
+        if (inventoryManager != null) {
+            LoggerUtils.info("Saving player inventories...");
+            try {
+                inventoryManager.shutdown();
+            } catch (Exception e) {
+                LoggerUtils.error("Error saving player inventories", e);
+            }
         }
         
         if (placeholderAPIIntegration != null) {
@@ -7,6 +7,7 @@ import org.hydr4.lilworlds.api.events.*;
 import org.hydr4.lilworlds.managers.WorldManager;
 import org.hydr4.lilworlds.portals.PortalManager;
 import org.hydr4.lilworlds.portals.Portal;
+import org.hydr4.lilworlds.portals.PortalMetrics;
 import org.hydr4.lilworlds.api.WorldBuilder;
 
 import java.util.List;
@@ -333,6 +334,17 @@ public class LilWorldsAPI {
         return getPortalManager().teleportPlayer(player, portal);
     }
     
+    /**
+     * Teleport a player through a portal after loading the destination chunk
+     * 
+     * @param player Player to teleport
+     * @param portal Portal to use
+     * @return CompletableFuture completed on the main thread with whether the player was teleported
+     */
+    public CompletableFuture<Boolean> teleportPlayerThroughPortalAsync(Player player, Portal portal) {
+        return getPortalManager().teleportPlayerAsync(player, portal);
+    }
+    
     /**
      * Find portal at a specific location
      * 
@@ -380,4 +392,14 @@ public class LilWorldsAPI {
     public long getPlayerPortalCooldown(Player player) {
         return getPortalManager().getRemainingCooldown(player);
     }
+    
+    /**
+     * Get usage metrics of a portal
+     * 
+     * @param portal Portal to check
+     * @return Teleport counts, latency and failure reasons since the server started
+     */
+    public PortalMetrics.Snapshot getPortalMetrics(Portal portal) {
+        return getPortalManager().getMetrics().getSnapshot(portal);
+    }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -890,17 +891,28 @@ public class WorldCommand extends BaseCommand {
         
         sendInfo(sender, plugin.getConfigManager().getMessage("teleporting-to-world", "{world}", worldName));
         
-        // Perform teleportation
-        boolean success = player.teleport(spawnLocation);
+        // Read the destination inventory off the main thread first, so the world change only applies it
+        CompletableFuture<Void> inventoryReady = plugin.getInventoryManager() != null
+            ? plugin.getInventoryManager().prefetch(player, world)
+            : CompletableFuture.completedFuture(null);
         
-        if (success) {
-            sendSuccess(sender, plugin.getConfigManager().getMessage("teleport-success", "{world}", worldName));
+        inventoryReady.thenRun(() -> {
+            if (!player.isOnline()) {
+                return;
+            }
             
-            // Log the teleportation for security
-            SecurityUtils.logSecurityEvent(sender, "WORLD_TELEPORT", "Teleported to world: " + worldName);
-        } else {
-            sendError(sender, plugin.getConfigManager().getMessage("teleport-failed", "{world}", worldName));
-        }
+            // Perform teleportation
+            boolean success = player.teleport(spawnLocation);
+            
+            if (success) {
+                sendSuccess(sender, plugin.getConfigManager().getMessage("teleport-success", "{world}", worldName));
+                
+                // Log the teleportation for security
+                SecurityUtils.logSecurityEvent(sender, "WORLD_TELEPORT", "Teleported to world: " + worldName);
+            } else {
+                sendError(sender, plugin.getConfigManager().getMessage("teleport-failed", "{world}", worldName));
+            }
+        });
         
         return true;
     }
@@ -0,0 +1,115 @@
+package org.hydr4.lilworlds.managers;
+
+import org.hydr4.lilworlds.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores each record in its own file, inventories/<uuid>/<group>.dat
+ */
+class FileInventoryStorage implements InventoryStorage {
+    
+    private static final String LAST_GROUP_FILE = "last-group";
+    
+    private final File folder;
+    
+    FileInventoryStorage(File folder) {
+        this.folder = folder;
+    }
+    
+    @Override
+    public byte[] read(InventoryKey key) throws IOException {
+        File file = getFile(key);
+        return file.exists() ? Files.readAllBytes(file.toPath()) : null;
+    }
+    
+    @Override
+    public Map<InventoryKey, byte[]> readAll(Collection<InventoryKey> keys) throws IOException {
+        Map<InventoryKey, byte[]> records = new HashMap<>();
+        for (InventoryKey key : keys) {
+            byte[] record = read(key);
+            if (record != null) {
+                records.put(key, record);
+            }
+        }
+        return records;
+    }
+    
+    @Override
+    public void writeAll(Map<InventoryKey, byte[]> records) throws IOException {
+        // Replaced through a temp file, so a concurrent read sees the old or the new file, never half of one
+        for (Map.Entry<InventoryKey, byte[]> entry : records.entrySet()) {
+            FileUtils.writeAtomically(getFile(entry.getKey()), entry.getValue());
+        }
+    }
+    
+    @Override
+    public void deleteAll(Collection<InventoryKey> keys) throws IOException {
+        for (InventoryKey key : keys) {
+            Files.deleteIfExists(getFile(key).toPath());
+        }
+    }
+    
+    @Override
+    public Collection<InventoryKey> keys() {
+        List<InventoryKey> keys = new ArrayList<>();
+        File[] playerFolders = folder.listFiles(File::isDirectory);
+        if (playerFolders == null) {
+            return keys;
+        }
+        for (File playerFolder : playerFolders) {
+            UUID playerId;
+            try {
+                playerId = UUID.fromString(playerFolder.getName());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            File[] files = playerFolder.listFiles((dir, name) -> name.endsWith(".dat"));
+            if (files != null) {
+                for (File file : files) {
+                    String name = file.getName();
+                    keys.add(new InventoryKey(playerId, name.substring(0, name.length() - 4)));
+                }
+            }
+        }
+        return keys;
+    }
+    
+    @Override
+    public String readLastGroup(UUID playerId) throws IOException {
+        File file = new File(new File(folder, playerId.toString()), LAST_GROUP_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        String groupName = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+        return groupName.isEmpty() ? null : groupName;
+    }
+    
+    @Override
+    public void writeLastGroup(UUID playerId, String groupName) throws IOException {
+        File file = new File(new File(folder, playerId.toString()), LAST_GROUP_FILE);
+        FileUtils.writeAtomically(file, groupName.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public String getDescription() {
+        return "files in " + folder.getName() + "/";
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    private File getFile(InventoryKey key) {
+        return new File(new File(folder, key.playerId.toString()), key.groupName + ".dat");
+    }
+}
\ No newline at end of file
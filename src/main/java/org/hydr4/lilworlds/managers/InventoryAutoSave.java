@@ -0,0 +1,206 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.event.entity.EntityRegainHealthEvent;
+import org.bukkit.event.entity.FoodLevelChangeEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerExpChangeEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerItemDamageEvent;
+import org.bukkit.event.player.PlayerLevelChangeEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerToggleFlightEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Periodically saves the players whose stored state changed since their last save
+ * Players are marked dirty from the events that change inventories, health, experience and
+ * the like. Every interval the dirty players are queued and saved a few per tick.
+ * Changes made without an event, such as another plugin editing an inventory directly, are
+ * saved with the next change, group switch or quit as before.
+ */
+class InventoryAutoSave implements Listener {
+    
+    private final LilWorlds plugin;
+    private final Consumer<Player> saver;
+    private final Set<UUID> dirty = new LinkedHashSet<>();
+    private final Set<UUID> queue = new LinkedHashSet<>();
+    private int intervalTicks;
+    private int playersPerTick;
+    private int ticksSinceQueue;
+    private BukkitTask task;
+    
+    /**
+     * @param saver Captures and queues the current group's data of a player
+     */
+    InventoryAutoSave(LilWorlds plugin, Consumer<Player> saver) {
+        this.plugin = plugin;
+        this.saver = saver;
+    }
+    
+    /**
+     * @param intervalSeconds Time between auto-save passes, 0 to disable auto-saving
+     * @param playersPerTick Most players captured in one tick
+     */
+    void configure(int intervalSeconds, int playersPerTick) {
+        this.intervalTicks = Math.max(0, intervalSeconds) * 20;
+        this.playersPerTick = Math.max(1, playersPerTick);
+    }
+    
+    void start() {
+        stop();
+        if (intervalTicks > 0) {
+            Bukkit.getPluginManager().registerEvents(this, plugin);
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+    
+    void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        HandlerList.unregisterAll(this);
+        dirty.clear();
+        queue.clear();
+    }
+    
+    /**
+     * Forget a player's changes, called whenever their data was just captured or applied
+     */
+    void markClean(UUID playerId) {
+        dirty.remove(playerId);
+        queue.remove(playerId);
+    }
+    
+    int getDirtyCount() {
+        return dirty.size();
+    }
+    
+    private void tick() {
+        if (++ticksSinceQueue >= intervalTicks) {
+            ticksSinceQueue = 0;
+            queue.addAll(dirty);
+        }
+        
+        int saved = 0;
+        Iterator<UUID> iterator = queue.iterator();
+        while (saved < playersPerTick && iterator.hasNext()) {
+            UUID playerId = iterator.next();
+            iterator.remove();
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null) {
+                dirty.remove(playerId);
+                continue;
+            }
+            saver.accept(player);
+            saved++;
+        }
+    }
+    
+    private void markDirty(Entity entity) {
+        if (entity instanceof Player) {
+            dirty.add(entity.getUniqueId());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        markDirty(event.getWhoClicked());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        markDirty(event.getWhoClicked());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickupItem(EntityPickupItemEvent event) {
+        markDirty(event.getEntity());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDropItem(PlayerDropItemEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemConsume(PlayerItemConsumeEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDamage(PlayerItemDamageEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDamage(EntityDamageEvent event) {
+        markDirty(event.getEntity());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onRegainHealth(EntityRegainHealthEvent event) {
+        markDirty(event.getEntity());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFoodLevelChange(FoodLevelChangeEvent event) {
+        markDirty(event.getEntity());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPotionEffect(EntityPotionEffectEvent event) {
+        markDirty(event.getEntity());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onExpChange(PlayerExpChangeEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLevelChange(PlayerLevelChangeEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onToggleFlight(PlayerToggleFlightEvent event) {
+        markDirty(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        markDirty(event.getPlayer());
+    }
+}
\ No newline at end of file
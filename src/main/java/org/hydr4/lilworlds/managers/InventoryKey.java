@@ -0,0 +1,44 @@
+package org.hydr4.lilworlds.managers;
+
+import java.util.UUID;
+
+/**
+ * Identifies the stored data of one player in one world group
+ */
+final class InventoryKey {
+    
+    private static final String DELTA_SUFFIX = ".delta";
+    
+    final UUID playerId;
+    final String groupName;
+    
+    InventoryKey(UUID playerId, String groupName) {
+        this.playerId = playerId;
+        this.groupName = groupName;
+    }
+    
+    /**
+     * Get the key the delta record of this key is stored under
+     */
+    InventoryKey deltaKey() {
+        return new InventoryKey(playerId, groupName + DELTA_SUFFIX);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof InventoryKey)) return false;
+        InventoryKey other = (InventoryKey) o;
+        return playerId.equals(other.playerId) && groupName.equals(other.groupName);
+    }
+    
+    @Override
+    public int hashCode() {
+        return playerId.hashCode() * 31 + groupName.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return playerId + ":" + groupName;
+    }
+}
\ No newline at end of file
@@ -1,23 +1,26 @@
 package org.hydr4.lilworlds.managers;
 
 import org.bukkit.Bukkit;
-import org.bukkit.GameMode;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.inventory.ItemStack;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.potion.PotionEffect;
+import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.configuration.ConfigurationSection;
 import org.hydr4.lilworlds.LilWorlds;
 import org.hydr4.lilworlds.utils.LoggerUtils;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -27,8 +30,18 @@ import java.util.concurrent.ConcurrentHashMap;
 public class InventoryManager implements Listener {
     
     private final LilWorlds plugin;
-    private final Map<String, PlayerData> playerDataCache = new ConcurrentHashMap<>();
+    private final PlayerDataCache playerDataCache = new PlayerDataCache(this::flushCachedData);
     private final File inventoryDataFolder;
+    private final InventoryStorage storage;
+    private final ItemBlobStore itemBlobs;
+    private final PlayerDataWriter writer;
+    private final InventoryTimings timings = new InventoryTimings();
+    private final PlayerDataDeltas deltas = new PlayerDataDeltas();
+    private final BukkitTask cacheExpiryTask;
+    private final InventoryAutoSave autoSave;
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Void>> prefetches = new ConcurrentHashMap<>();
+    private final String mainWorldName;
     private boolean enabled = false;
     
     // Configuration settings
@@ -42,13 +55,18 @@ public class InventoryManager implements Listener {
     private boolean separateEnderchest = true;
     
     // World groups for shared inventories
-    private Map<String, String> worldGroups = new HashMap<>();
+    private Map<String, String> worldGroups = new ConcurrentHashMap<>();
     private String defaultGroup = "default";
     
     // Advanced settings
     private boolean saveToFiles = true;
+    private boolean compressFiles = true;
+    private boolean dedupeItems = false;
+    private int dedupeMinSize = 128; // bytes
     private int cacheTimeout = 30; // minutes
+    private int cacheMaxWeight = 50000; // item stacks
     private int autoSaveInterval = 300; // seconds
+    private int autoSavePlayersPerTick = 5;
     private boolean backupOnSwitch = false;
     private boolean clearCacheOnUnload = true;
     
@@ -64,12 +82,67 @@ public class InventoryManager implements Listener {
         // Register events
         Bukkit.getPluginManager().registerEvents(this, plugin);
         
+        this.autoSave = new InventoryAutoSave(plugin, this::autoSavePlayer);
+        
         // Load configuration
         loadConfiguration();
         
+        this.storage = createStorage();
+        this.itemBlobs = new ItemBlobStore(storage);
+        itemBlobs.configure(dedupeItems, dedupeMinSize);
+        if (dedupeItems && saveToFiles) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    itemBlobs.sweep();
+                } catch (IOException e) {
+                    LoggerUtils.error("Error removing unused stored items", e);
+                }
+            });
+        } else {
+            itemBlobs.skipSweep();
+        }
+        
+        int ioThreads = plugin.getConfig().getInt("features.separate-inventories.advanced.io-threads", 2);
+        int batchSize = plugin.getConfig().getInt("features.separate-inventories.advanced.write-batch-size", 64);
+        this.writer = new PlayerDataWriter(this::writePlayerData, ioThreads, batchSize);
+        
+        // Where players without a known last group are expected to log in
+        this.mainWorldName = Bukkit.getWorlds().isEmpty() ? null : Bukkit.getWorlds().get(0).getName();
+        
+        // Sweep expired cache entries once a minute
+        this.cacheExpiryTask = Bukkit.getScheduler().runTaskTimer(plugin, playerDataCache::evictExpired, 1200L, 1200L);
+        autoSave.start();
+        
         LoggerUtils.info("InventoryManager initialized - Enabled: " + enabled);
     }
     
+    /**
+     * Open the storage backend selected in config, falling back to files if it can't be opened
+     */
+    private InventoryStorage createStorage() {
+        String type = plugin.getConfig().getString("features.separate-inventories.advanced.storage", "file");
+        if ("sqlite".equalsIgnoreCase(type)) {
+            try {
+                return new SqliteInventoryStorage(new File(plugin.getDataFolder(), "inventories.db"));
+            } catch (IOException e) {
+                LoggerUtils.error("Could not open the SQLite inventory storage, using files instead", e);
+            }
+        } else if ("log".equalsIgnoreCase(type)) {
+            try {
+                long segmentSize = plugin.getConfig().getLong("features.separate-inventories.advanced.log.segment-size-mb", 16) * 1024 * 1024;
+                double threshold = plugin.getConfig().getDouble("features.separate-inventories.advanced.log.compaction-threshold", 0.5);
+                int interval = plugin.getConfig().getInt("features.separate-inventories.advanced.log.compaction-interval-minutes", 5);
+                return new LogInventoryStorage(new File(plugin.getDataFolder(), "inventories-log"), segmentSize, threshold, interval);
+            } catch (IOException e) {
+                LoggerUtils.error("Could not open the inventory log, using files instead", e);
+            }
+        } else if ("memory".equalsIgnoreCase(type)) {
+            LoggerUtils.warn("Inventory data is kept in memory only and will be lost on restart");
+            return new MemoryInventoryStorage();
+        }
+        return new FileInventoryStorage(inventoryDataFolder);
+    }
+    
     /**
      * Load configuration settings
      */
@@ -102,8 +175,19 @@ public class InventoryManager implements Listener {
         
         // Load advanced settings
         saveToFiles = plugin.getConfig().getBoolean("features.separate-inventories.advanced.save-to-files", true);
+        compressFiles = plugin.getConfig().getBoolean("features.separate-inventories.advanced.compress-files", true);
+        deltas.configure(plugin.getConfig().getBoolean("features.separate-inventories.advanced.delta.enabled", false),
+                plugin.getConfig().getInt("features.separate-inventories.advanced.delta.full-snapshot-every", 20),
+                plugin.getConfig().getDouble("features.separate-inventories.advanced.delta.max-changed-fraction", 0.5),
+                plugin.getConfig().getInt("features.separate-inventories.advanced.delta.max-tracked", 5000));
+        dedupeItems = plugin.getConfig().getBoolean("features.separate-inventories.advanced.dedupe-items.enabled", false);
+        dedupeMinSize = plugin.getConfig().getInt("features.separate-inventories.advanced.dedupe-items.min-size", 128);
         cacheTimeout = plugin.getConfig().getInt("features.separate-inventories.advanced.cache-timeout", 30);
+        cacheMaxWeight = plugin.getConfig().getInt("features.separate-inventories.advanced.cache-max-weight", 50000);
+        playerDataCache.configure(cacheTimeout * 60_000L, cacheMaxWeight);
         autoSaveInterval = plugin.getConfig().getInt("features.separate-inventories.advanced.auto-save-interval", 300);
+        autoSavePlayersPerTick = plugin.getConfig().getInt("features.separate-inventories.advanced.auto-save-players-per-tick", 5);
+        autoSave.configure(autoSaveInterval, autoSavePlayersPerTick);
         backupOnSwitch = plugin.getConfig().getBoolean("features.separate-inventories.advanced.backup-on-switch", false);
         clearCacheOnUnload = plugin.getConfig().getBoolean("features.separate-inventories.advanced.clear-cache-on-unload", true);
         
@@ -141,11 +225,114 @@ public class InventoryManager implements Listener {
         LoggerUtils.info("Separate inventories " + (enabled ? "enabled" : "disabled"));
     }
     
+    /**
+     * Read the data of the group a player will most likely join in, so joining only has to apply it
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (!enabled || !saveToFiles) return;
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        
+        UUID playerId = event.getUniqueId();
+        
+        // A session still online saves again when it is kicked, the data read now would be stale
+        if (onlinePlayers.contains(playerId)) return;
+        
+        // Players without a last group are expected in the main world, the join loads from disk if not
+        String groupName = readLastGroup(playerId);
+        if (groupName == null) {
+            if (mainWorldName == null) return;
+            groupName = getWorldGroup(mainWorldName);
+        }
+        if (playerDataCache.contains(playerId, groupName)) return;
+        
+        try {
+            long start = System.nanoTime();
+            Object read = playerDataCache.startRead(playerId, groupName);
+            PlayerData data = readPlayerData(playerId, groupName);
+            if (data == null) {
+                data = PlayerData.createDefault(); // First visit, cached so the join has nothing left to read
+            }
+            playerDataCache.putRead(playerId, groupName, read, data);
+            timings.record(InventoryTimings.Stage.PREFETCH, System.nanoTime() - start);
+        } catch (Exception e) {
+            LoggerUtils.error("Error prefetching player data for " + event.getName() + 
+                             " in group " + groupName, e);
+        }
+    }
+    
+    /**
+     * Start reading the destination group's data as soon as a teleport to another world is known
+     * Teleports started by this plugin prefetch earlier, this catches the ones of other plugins.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (!enabled) return;
+        
+        Location to = event.getTo();
+        if (to != null && to.getWorld() != null && !to.getWorld().equals(event.getFrom().getWorld())) {
+            prefetch(event.getPlayer(), to.getWorld());
+        }
+    }
+    
+    /**
+     * Read a player's data for the group of a world they are about to enter, off the main thread
+     * Once the future completes the world change only has to apply data from memory.
+     * 
+     * @return A future completed on the main thread, right away if there is nothing to read
+     */
+    public CompletableFuture<Void> prefetch(Player player, World world) {
+        String groupName = getWorldGroup(world.getName());
+        if (!enabled || !saveToFiles || groupName.equals(getWorldGroup(player.getWorld().getName()))) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        UUID playerId = player.getUniqueId();
+        if (playerDataCache.contains(playerId, groupName)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        String key = prefetchKey(playerId, groupName);
+        CompletableFuture<Void> read = prefetches.get(key);
+        if (read == null) {
+            // Registered before the read starts, so its removal can't run first
+            CompletableFuture<Void> started = new CompletableFuture<>();
+            read = started;
+            prefetches.put(key, started);
+            // Started before the task, a save from now on, like the player quitting, makes this read stale
+            Object cacheRead = playerDataCache.startRead(playerId, groupName);
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    long start = System.nanoTime();
+                    PlayerData data = readPlayerData(playerId, groupName);
+                    if (data == null) {
+                        data = PlayerData.createDefault(); // First visit, cached so the switch has nothing left to read
+                    }
+                    playerDataCache.putRead(playerId, groupName, cacheRead, data);
+                    timings.record(InventoryTimings.Stage.PREFETCH, System.nanoTime() - start);
+                } catch (Exception e) {
+                    LoggerUtils.error("Error prefetching player data for " + playerId + " in group " + groupName, e);
+                }
+                started.complete(null);
+                prefetches.remove(key, started);
+            });
+        }
+        
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        read.whenComplete((ignored, e) -> Bukkit.getScheduler().runTask(plugin, () -> ready.complete(null)));
+        return ready;
+    }
+    
+    private static String prefetchKey(UUID playerId, String groupName) {
+        return playerId.toString() + ":" + groupName;
+    }
+    
     /**
      * Handle player joining the server
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        onlinePlayers.add(event.getPlayer().getUniqueId());
         if (!enabled) return;
         
         Player player = event.getPlayer();
@@ -161,7 +348,10 @@ public class InventoryManager implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
-        if (!enabled) return;
+        if (!enabled) {
+            onlinePlayers.remove(event.getPlayer().getUniqueId());
+            return;
+        }
         
         Player player = event.getPlayer();
         String worldName = player.getWorld().getName();
@@ -171,7 +361,16 @@ public class InventoryManager implements Listener {
         savePlayerData(player, groupName);
         
         // Remove from cache
-        playerDataCache.remove(getPlayerKey(player.getUniqueId(), groupName));
+        playerDataCache.remove(player.getUniqueId(), groupName);
+        
+        // Remember the group for prefetching on the next login
+        if (saveToFiles) {
+            UUID playerId = player.getUniqueId();
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> writeLastGroup(playerId, groupName));
+        }
+        
+        // Only now, a login prefetching before this point would have read data older than this save
+        onlinePlayers.remove(player.getUniqueId());
     }
     
     /**
@@ -216,18 +415,19 @@ public class InventoryManager implements Listener {
      */
     private void savePlayerData(Player player, String groupName) {
         try {
+            long start = System.nanoTime();
             PlayerData data = new PlayerData();
             
-            // Save inventory (if enabled)
+            // Save inventory (if enabled), copying every stack so the I/O thread never sees a live item
             if (separateInventory) {
-                data.inventory = player.getInventory().getContents().clone();
-                data.armorContents = player.getInventory().getArmorContents().clone();
-                data.extraContents = player.getInventory().getExtraContents().clone();
+                data.inventory = PlayerData.copyItems(player.getInventory().getContents());
+                data.armorContents = PlayerData.copyItems(player.getInventory().getArmorContents());
+                data.extraContents = PlayerData.copyItems(player.getInventory().getExtraContents());
             }
             
             // Save ender chest (if enabled)
             if (separateEnderchest) {
-                data.enderChest = player.getEnderChest().getContents().clone();
+                data.enderChest = PlayerData.copyItems(player.getEnderChest().getContents());
             }
             
             // Save player stats (if enabled)
@@ -266,20 +466,20 @@ public class InventoryManager implements Listener {
             
             // Save location (if enabled)
             if (separateLocation) {
-                data.location = player.getLocation().clone();
+                data.location = PlayerData.SavedLocation.of(player.getLocation());
             }
             
-            // Cache the data
-            String key = getPlayerKey(player.getUniqueId(), groupName);
-            playerDataCache.put(key, data);
+            timings.record(InventoryTimings.Stage.CAPTURE, System.nanoTime() - start);
+            autoSave.markClean(player.getUniqueId());
             
-            // Save to file asynchronously (if enabled)
+            // Queue the file write, an older write of the same data still waiting is dropped
             if (saveToFiles) {
-                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                    savePlayerDataToFile(player.getUniqueId(), groupName, data);
-                });
+                writer.submit(player.getUniqueId(), groupName, data);
             }
             
+            // Cache the data, without files it is the only copy and must never be evicted
+            playerDataCache.put(player.getUniqueId(), groupName, data, !saveToFiles);
+            
         } catch (Exception e) {
             LoggerUtils.error("Error saving player data for " + player.getName() + 
                              " in group " + groupName, e);
@@ -291,25 +491,30 @@ public class InventoryManager implements Listener {
      */
     private void loadPlayerData(Player player, String groupName) {
         try {
-            String key = getPlayerKey(player.getUniqueId(), groupName);
-            PlayerData data = playerDataCache.get(key);
+            PlayerData data = playerDataCache.get(player.getUniqueId(), groupName);
             
-            // If not in cache, try to load from file
+            // If not in cache or prefetched, read it on the main thread
+            // Never wait for a prefetch here, its task may only start on the next tick
             if (data == null && saveToFiles) {
-                data = loadPlayerDataFromFile(player.getUniqueId(), groupName);
+                long start = System.nanoTime();
+                data = readPlayerData(player.getUniqueId(), groupName);
                 if (data != null) {
-                    playerDataCache.put(key, data);
+                    playerDataCache.put(player.getUniqueId(), groupName, data, false);
                 }
+                timings.record(InventoryTimings.Stage.DISK_LOAD, System.nanoTime() - start);
             }
             
             // If still no data, create default data
             if (data == null) {
-                data = createDefaultPlayerData();
-                playerDataCache.put(key, data);
+                data = PlayerData.createDefault();
+                playerDataCache.put(player.getUniqueId(), groupName, data, false);
             }
             
             // Apply the data to the player
+            long start = System.nanoTime();
             applyPlayerData(player, data);
+            timings.record(InventoryTimings.Stage.APPLY, System.nanoTime() - start);
+            autoSave.markClean(player.getUniqueId());
             
         } catch (Exception e) {
             LoggerUtils.error("Error loading player data for " + player.getName() + 
@@ -387,10 +592,11 @@ public class InventoryManager implements Listener {
         }
         
         // Apply location (if enabled)
-        if (separateLocation && data.location != null) {
+        Location location = separateLocation && data.location != null ? data.location.toLocation() : null;
+        if (location != null) {
             // Teleport player to stored location
             Bukkit.getScheduler().runTask(plugin, () -> {
-                player.teleport(data.location);
+                player.teleport(location);
             });
         }
         
@@ -399,92 +605,129 @@ public class InventoryManager implements Listener {
     }
     
     /**
-     * Create default player data
+     * Encode a batch of player data as full or delta records and write it to the storage in one go
+     * Items stored apart for the first time are written ahead of the records referring to them.
      */
-    private PlayerData createDefaultPlayerData() {
-        PlayerData data = new PlayerData();
-        
-        data.inventory = new ItemStack[36];
-        data.armorContents = new ItemStack[4];
-        data.extraContents = new ItemStack[1];
-        
-        data.health = 20.0;
-        data.maxHealth = 20.0;
-        data.foodLevel = 20;
-        data.saturation = 5.0f;
-        data.exhaustion = 0.0f;
-        
-        data.exp = 0.0f;
-        data.level = 0;
-        data.totalExperience = 0;
-        
-        data.gameMode = GameMode.SURVIVAL;
-        
-        data.allowFlight = false;
-        data.flying = false;
-        data.flySpeed = 0.1f;
-        data.walkSpeed = 0.2f;
+    private void writePlayerData(Map<InventoryKey, PlayerData> batch) throws IOException {
+        List<PlayerDataDeltas.Record> encoded = new ArrayList<>(batch.size());
+        ItemBlobStore.Batch blobs = itemBlobs.newBatch();
+        for (Map.Entry<InventoryKey, PlayerData> entry : batch.entrySet()) {
+            long start = System.nanoTime();
+            encoded.add(deltas.encode(entry.getKey(), entry.getValue(), compressFiles, blobs));
+            timings.record(InventoryTimings.Stage.ENCODE, System.nanoTime() - start);
+        }
         
-        data.potionEffects = new PotionEffect[0];
+        Map<InventoryKey, byte[]> records = new LinkedHashMap<>();
+        if (blobs != null) {
+            records.putAll(blobs.getBlobs());
+        }
+        for (PlayerDataDeltas.Record record : encoded) {
+            records.put(record.storageKey, record.bytes);
+        }
         
-        return data;
+        long start = System.nanoTime();
+        try {
+            storage.writeAll(records);
+        } catch (IOException | RuntimeException e) {
+            encoded.forEach(deltas::failed);
+            throw e;
+        }
+        encoded.forEach(deltas::written);
+        itemBlobs.written(blobs);
+        timings.record(InventoryTimings.Stage.WRITE, System.nanoTime() - start);
+        LoggerUtils.debug("Saved inventory data of " + batch.size() + " players: " + batch.keySet());
     }
     
     /**
-     * Save player data to file
+     * Load player data from the storage, applying its delta record if there is one
      */
-    private void savePlayerDataToFile(UUID playerId, String worldName, PlayerData data) {
-        File playerFolder = new File(inventoryDataFolder, playerId.toString());
-        if (!playerFolder.exists()) {
-            playerFolder.mkdirs();
-        }
-        
-        File dataFile = new File(playerFolder, worldName + ".dat");
-        
-        try (FileOutputStream fos = new FileOutputStream(dataFile)) {
-            // This is a simplified implementation
-            // In a real plugin, you'd want to use NBT or a proper serialization format
-            LoggerUtils.debug("Saved inventory data for " + playerId + " in world " + worldName);
+    private PlayerData loadPlayerDataFromStorage(UUID playerId, String groupName) {
+        try {
+            InventoryKey key = new InventoryKey(playerId, groupName);
+            Map<InventoryKey, byte[]> records = storage.readAll(Arrays.asList(key, key.deltaKey()));
+            byte[] record = records.get(key);
+            if (record == null) {
+                return null;
+            }
+            
+            byte[] delta = records.get(key.deltaKey());
+            PlayerData data;
+            try {
+                data = PlayerDataCodec.decode(record, delta, itemBlobs);
+            } catch (IOException e) {
+                if (delta == null) {
+                    throw e;
+                }
+                // The full snapshot alone is older but still better than nothing
+                LoggerUtils.warn("Ignoring unreadable inventory delta of " + key + ": " + e.getMessage());
+                data = PlayerDataCodec.decode(record, null, itemBlobs);
+            }
+            LoggerUtils.debug("Loaded inventory data for " + playerId + " in group " + groupName);
+            return data;
         } catch (IOException e) {
-            LoggerUtils.error("Error saving player data to file", e);
+            LoggerUtils.error("Error loading player data from " + storage.getDescription(), e);
+            return null;
         }
     }
     
     /**
-     * Load player data from file
+     * Save a player whose state changed since their last save
      */
-    private PlayerData loadPlayerDataFromFile(UUID playerId, String worldName) {
-        File playerFolder = new File(inventoryDataFolder, playerId.toString());
-        File dataFile = new File(playerFolder, worldName + ".dat");
-        
-        if (!dataFile.exists()) {
+    private void autoSavePlayer(Player player) {
+        if (!enabled || !saveToFiles) return;
+        savePlayerData(player, getWorldGroup(player.getWorld().getName()));
+    }
+    
+    /**
+     * Read player data from a write that has not reached the file yet, or from the file
+     * 
+     * @return The data, or null if the player never saved data in the group
+     */
+    private PlayerData readPlayerData(UUID playerId, String groupName) {
+        PlayerData data = writer.getUnwritten(playerId, groupName);
+        return data != null ? data : loadPlayerDataFromStorage(playerId, groupName);
+    }
+    
+    /**
+     * Get the group a player was in when they last left
+     * 
+     * @return The group name, or null if unknown
+     */
+    private String readLastGroup(UUID playerId) {
+        try {
+            return storage.readLastGroup(playerId);
+        } catch (IOException e) {
+            LoggerUtils.debug("Could not read the last group of " + playerId + ": " + e.getMessage());
             return null;
         }
-        
-        try (FileInputStream fis = new FileInputStream(dataFile)) {
-            // This is a simplified implementation
-            // In a real plugin, you'd want to use NBT or a proper serialization format
-            LoggerUtils.debug("Loaded inventory data for " + playerId + " in world " + worldName);
-            return null; // Return null for now since we're not implementing full serialization
+    }
+    
+    private void writeLastGroup(UUID playerId, String groupName) {
+        try {
+            storage.writeLastGroup(playerId, groupName);
         } catch (IOException e) {
-            LoggerUtils.error("Error loading player data from file", e);
-            return null;
+            LoggerUtils.warn("Could not save the last group of " + playerId + ": " + e.getMessage());
         }
     }
     
     /**
-     * Get a unique key for player data
+     * Hand dirty cached data to the writer before the cache evicts it
+     * 
+     * @return Whether the data can be evicted, never when it is not saved to files
      */
-    private String getPlayerKey(UUID playerId, String worldName) {
-        return playerId.toString() + ":" + worldName;
+    private boolean flushCachedData(UUID playerId, String groupName, PlayerData data) {
+        if (!saveToFiles) {
+            return false;
+        }
+        writer.submit(playerId, groupName, data);
+        return true;
     }
     
     /**
      * Clear all cached data for a player
      */
     public void clearPlayerCache(UUID playerId) {
-        playerDataCache.entrySet().removeIf(entry -> 
-            entry.getKey().startsWith(playerId.toString() + ":"));
+        playerDataCache.removePlayer(playerId);
     }
     
     /**
@@ -502,11 +745,37 @@ public class InventoryManager implements Listener {
         return playerDataCache.size();
     }
     
+    /**
+     * Save online players and wait for every queued write
+     */
+    public void shutdown() {
+        cacheExpiryTask.cancel();
+        autoSave.stop();
+        if (enabled) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                String groupName = getWorldGroup(player.getWorld().getName());
+                savePlayerData(player, groupName);
+                if (saveToFiles) {
+                    writeLastGroup(player.getUniqueId(), groupName);
+                }
+            }
+        }
+        writer.close();
+        
+        try {
+            storage.close();
+        } catch (IOException e) {
+            LoggerUtils.error("Error closing inventory storage", e);
+        }
+    }
+    
     /**
      * Reload configuration
      */
     public void reload() {
         loadConfiguration();
+        itemBlobs.configure(dedupeItems, dedupeMinSize);
+        autoSave.start();
         LoggerUtils.info("InventoryManager configuration reloaded");
     }
     
@@ -542,9 +811,16 @@ public class InventoryManager implements Listener {
         StringBuilder info = new StringBuilder();
         info.append("Inventory Manager Status:\n");
         info.append("- Enabled: ").append(enabled).append("\n");
-        info.append("- Cache Size: ").append(playerDataCache.size()).append(" entries\n");
+        info.append("- Cache: ").append(playerDataCache.getStats()).append("\n");
         info.append("- World Groups: ").append(worldGroups.size()).append(" configured\n");
         info.append("- Save to Files: ").append(saveToFiles).append("\n");
+        info.append("- Storage: ").append(storage.getDescription()).append("\n");
+        info.append("- Pending Writes: ").append(writer.getQueueSize()).append("\n");
+        info.append("- Delta Records: ").append(deltas.getStats()).append("\n");
+        info.append("- Item Store: ").append(itemBlobs.getStats()).append("\n");
+        info.append("- Auto-save: ").append(autoSaveInterval > 0 ? "every " + autoSaveInterval + "s, " +
+                autoSave.getDirtyCount() + " players changed" : "disabled").append("\n");
+        info.append("- Timings:\n").append(timings.format());
         info.append("- Separation Settings:\n");
         info.append("  * Inventory: ").append(separateInventory).append("\n");
         info.append("  * Health: ").append(separateHealth).append("\n");
@@ -556,34 +832,4 @@ public class InventoryManager implements Listener {
         info.append("  * Ender Chest: ").append(separateEnderchest);
         return info.toString();
     }
-    
-    /**
-     * Player data storage class
-     */
-    private static class PlayerData {
-        ItemStack[] inventory;
-        ItemStack[] armorContents;
-        ItemStack[] extraContents;
-        ItemStack[] enderChest;
-        
-        double health;
-        double maxHealth;
-        int foodLevel;
-        float saturation;
-        float exhaustion;
-        
-        float exp;
-        int level;
-        int totalExperience;
-        
-        GameMode gameMode;
-        
-        boolean allowFlight;
-        boolean flying;
-        float flySpeed;
-        float walkSpeed;
-        
-        PotionEffect[] potionEffects;
-        Location location;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package org.hydr4.lilworlds.managers;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Backend that persists encoded player data records
+ * Called from the inventory I/O threads and the login thread, implementations must be thread-safe.
+ */
+interface InventoryStorage {
+    
+    /**
+     * Read one record
+     * 
+     * @return The record, or null if the player never saved data in the group
+     */
+    byte[] read(InventoryKey key) throws IOException;
+    
+    /**
+     * Read several records at once
+     * 
+     * @return The records that exist, keys without data are left out
+     */
+    Map<InventoryKey, byte[]> readAll(Collection<InventoryKey> keys) throws IOException;
+    
+    /**
+     * Write several records at once, replacing older records of the same keys
+     * A record is either fully written or not at all, even if the server crashes mid-write.
+     */
+    void writeAll(Map<InventoryKey, byte[]> records) throws IOException;
+    
+    /**
+     * Delete several records, keys without data are ignored
+     */
+    void deleteAll(Collection<InventoryKey> keys) throws IOException;
+    
+    /**
+     * Get the keys of every stored record, used by maintenance tasks rather than gameplay
+     */
+    Collection<InventoryKey> keys() throws IOException;
+    
+    /**
+     * Get the group a player was in when they last left
+     * 
+     * @return The group name, or null if unknown
+     */
+    String readLastGroup(UUID playerId) throws IOException;
+    
+    void writeLastGroup(UUID playerId, String groupName) throws IOException;
+    
+    /**
+     * Get a short description for the status output
+     */
+    String getDescription();
+    
+    /**
+     * Release the backend, called after the last write
+     */
+    void close() throws IOException;
+}
\ No newline at end of file
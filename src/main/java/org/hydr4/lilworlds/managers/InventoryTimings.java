@@ -0,0 +1,65 @@
+package org.hydr4.lilworlds.managers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings of the inventory save and load pipeline, split by thread
+ */
+class InventoryTimings {
+    
+    enum Stage {
+        CAPTURE("Snapshot (main thread)"),
+        APPLY("Apply (main thread)"),
+        DISK_LOAD("Disk load (main thread)"),
+        PREFETCH("Prefetch (login thread)"),
+        ENCODE("Encode (I/O thread)"),
+        WRITE("Write (I/O thread)");
+        
+        final String label;
+        
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+    
+    private final Timing[] timings = new Timing[Stage.values().length];
+    
+    InventoryTimings() {
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new Timing();
+        }
+    }
+    
+    void record(Stage stage, long nanos) {
+        Timing timing = timings[stage.ordinal()];
+        timing.count.increment();
+        timing.totalNanos.add(nanos);
+        timing.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    /**
+     * Format one line per stage that ran at least once
+     */
+    String format() {
+        StringBuilder builder = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            Timing timing = timings[stage.ordinal()];
+            long count = timing.count.sum();
+            if (count == 0) {
+                continue;
+            }
+            builder.append("  * ").append(stage.label).append(": ")
+                .append(String.format("avg %.3f ms, max %.3f ms over %d",
+                    timing.totalNanos.sum() / 1_000_000.0 / count, timing.maxNanos.get() / 1_000_000.0, count))
+                .append("\n");
+        }
+        return builder.toString();
+    }
+    
+    private static class Timing {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+}
\ No newline at end of file
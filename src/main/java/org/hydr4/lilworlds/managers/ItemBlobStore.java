@@ -0,0 +1,290 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.inventory.ItemStack;
+import org.hydr4.lilworlds.utils.LoggerUtils;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed store for serialized items
+ * Items whose serialized form reaches the minimum size are stored once, under the SHA-256 of
+ * their payload, and player data records only hold the hash. A kit handed to thousands of
+ * players is written a single time. Blobs no record refers to anymore are removed by a
+ * mark-and-sweep pass after startup.
+ * 
+ * Decoded items are interned by the same hash, so identical stacks in cached player data are
+ * one shared instance. That is safe because cached data is never modified, applying it to a
+ * player copies the items.
+ */
+class ItemBlobStore {
+    
+    static final int HASH_LENGTH = 32;
+    
+    /** Player id blobs are stored under, the group name is the hex hash */
+    private static final UUID BLOB_OWNER = new UUID(0L, 0L);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    
+    private final InventoryStorage storage;
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    private final Map<String, InternedItem> interned = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ItemStack> collected = new ReferenceQueue<>();
+    private final LongAdder blobsWritten = new LongAdder();
+    private final LongAdder referencesWritten = new LongAdder();
+    private final LongAdder sharedItems = new LongAdder();
+    
+    private volatile boolean enabled;
+    private volatile int minSize;
+    
+    // Hashes referenced since startup, kept from being swept; null once the sweep finished. Guarded by this.
+    private Set<String> referencedSinceStart = new HashSet<>();
+    
+    ItemBlobStore(InventoryStorage storage) {
+        this.storage = storage;
+    }
+    
+    /**
+     * @param enabled Whether new records store items apart, stored items are read either way
+     * @param minSize Smallest serialized item in bytes that is stored apart
+     */
+    void configure(boolean enabled, int minSize) {
+        this.enabled = enabled;
+        this.minSize = Math.max(HASH_LENGTH, minSize);
+    }
+    
+    /**
+     * Start collecting the blobs of records encoded together
+     * 
+     * @return The batch, or null if items are not stored apart
+     */
+    Batch newBatch() {
+        return enabled ? new Batch() : null;
+    }
+    
+    /**
+     * Remember the blobs of a batch that reached the storage, later records only refer to them
+     */
+    void written(Batch batch) {
+        if (batch != null) {
+            stored.addAll(batch.hashes);
+            blobsWritten.add(batch.blobs.size());
+        }
+    }
+    
+    /**
+     * Read the payload of a blob, the encoding byte followed by the serialized item
+     * 
+     * @return The payload, or null if the blob is missing
+     */
+    byte[] load(byte[] hash) throws IOException {
+        return storage.read(getKey(toHex(hash)));
+    }
+    
+    /**
+     * Get the shared instance of a decoded item
+     * 
+     * @return The item, or null if no live item has this hash
+     */
+    ItemStack getInterned(byte[] hash) {
+        InternedItem reference = interned.get(toHex(hash));
+        ItemStack item = reference != null ? reference.get() : null;
+        if (item != null) {
+            sharedItems.increment();
+        }
+        return item;
+    }
+    
+    /**
+     * Make a decoded item the shared instance of its hash
+     * 
+     * @return The shared instance, the given item unless another thread interned one first
+     */
+    ItemStack intern(byte[] hash, ItemStack item) {
+        removeCollected();
+        String key = toHex(hash);
+        InternedItem fresh = new InternedItem(key, item, collected);
+        while (true) {
+            InternedItem current = interned.putIfAbsent(key, fresh);
+            if (current == null) {
+                return item;
+            }
+            ItemStack shared = current.get();
+            if (shared != null) {
+                sharedItems.increment();
+                return shared;
+            }
+            interned.remove(key, current);
+        }
+    }
+    
+    /**
+     * Delete the blobs no stored record refers to
+     * Runs once after startup. Blobs referenced by records encoded since startup are kept, so
+     * records still being written can't lose their items.
+     */
+    void sweep() throws IOException {
+        try {
+            long start = System.currentTimeMillis();
+            Set<String> referenced = new HashSet<>();
+            List<InventoryKey> blobKeys = new ArrayList<>();
+            int records = 0;
+            for (InventoryKey key : storage.keys()) {
+                if (isBlob(key)) {
+                    blobKeys.add(key);
+                    continue;
+                }
+                byte[] record = storage.read(key);
+                if (record == null) {
+                    continue;
+                }
+                try {
+                    PlayerDataCodec.collectBlobHashes(record, referenced);
+                    records++;
+                } catch (IOException e) {
+                    // Its items can't be told apart from garbage, keep everything this time
+                    LoggerUtils.warn("Skipping the stored item sweep, unreadable inventory record " + key + ": " + e.getMessage());
+                    return;
+                }
+            }
+            
+            List<InventoryKey> garbage = new ArrayList<>();
+            synchronized (this) {
+                referenced.addAll(referencedSinceStart);
+                for (InventoryKey key : blobKeys) {
+                    if (referenced.contains(key.groupName)) {
+                        stored.add(key.groupName);
+                    } else {
+                        garbage.add(key);
+                    }
+                }
+                // Deleted while holding the lock, so no batch can skip writing one of them meanwhile
+                storage.deleteAll(garbage);
+            }
+            LoggerUtils.info("Swept stored items: " + (blobKeys.size() - garbage.size()) + " kept, " + garbage.size() +
+                " removed, " + records + " records checked in " + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            synchronized (this) {
+                referencedSinceStart = null;
+            }
+        }
+    }
+    
+    /**
+     * Give up on sweeping until the next startup, nothing is protected from a sweep then
+     */
+    synchronized void skipSweep() {
+        referencedSinceStart = null;
+    }
+    
+    String getStats() {
+        removeCollected();
+        return (enabled ? blobsWritten.sum() + " items stored apart, " + referencesWritten.sum() + " references written, "
+            : "storing apart disabled, ") + interned.size() + " shared in memory, " + sharedItems.sum() + " reuses";
+    }
+    
+    static String toHex(byte[] hash) {
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * Hash an item payload, the encoding byte followed by the serialized item
+     */
+    static byte[] hash(int encoding, byte[] bytes) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update((byte) encoding);
+        digest.update(bytes);
+        return digest.digest();
+    }
+    
+    private static InventoryKey getKey(String hash) {
+        return new InventoryKey(BLOB_OWNER, hash);
+    }
+    
+    private static boolean isBlob(InventoryKey key) {
+        return key.playerId.equals(BLOB_OWNER);
+    }
+    
+    private void removeCollected() {
+        InternedItem reference;
+        while ((reference = (InternedItem) collected.poll()) != null) {
+            interned.remove(reference.hash, reference);
+        }
+    }
+    
+    /**
+     * Blobs of the records encoded for one storage write
+     */
+    class Batch {
+        private final Map<InventoryKey, byte[]> blobs = new LinkedHashMap<>();
+        private final List<String> hashes = new ArrayList<>();
+        
+        /**
+         * Offer an item for storing apart
+         * 
+         * @return The hash the record refers to it by, or null to write it inline
+         */
+        byte[] store(int encoding, byte[] bytes) {
+            if (bytes.length < minSize) {
+                return null;
+            }
+            
+            byte[] hash = hash(encoding, bytes);
+            String key = toHex(hash);
+            synchronized (ItemBlobStore.this) {
+                if (referencedSinceStart != null) {
+                    referencedSinceStart.add(key);
+                }
+                if (!stored.contains(key) && !blobs.containsKey(getKey(key))) {
+                    byte[] payload = new byte[bytes.length + 1];
+                    payload[0] = (byte) encoding;
+                    System.arraycopy(bytes, 0, payload, 1, bytes.length);
+                    blobs.put(getKey(key), payload);
+                    hashes.add(key);
+                }
+            }
+            referencesWritten.increment();
+            return hash;
+        }
+        
+        /**
+         * Get the blobs this batch has to write before its records
+         */
+        Map<InventoryKey, byte[]> getBlobs() {
+            return blobs;
+        }
+    }
+    
+    private static final class InternedItem extends WeakReference<ItemStack> {
+        final String hash;
+        
+        InternedItem(String hash, ItemStack item, ReferenceQueue<ItemStack> queue) {
+            super(item, queue);
+            this.hash = hash;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,704 @@
+package org.hydr4.lilworlds.managers;
+
+import org.hydr4.lilworlds.utils.FileUtils;
+import org.hydr4.lilworlds.utils.LoggerUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Stores records by appending them to segment files, a write never rewrites existing data
+ * An in-memory index points every key at its newest record. Segments that are mostly
+ * superseded records are compacted in the background: their live records are copied into a
+ * new segment and the old file is deleted.
+ * 
+ * The index is checkpointed to index.dat after each compaction and on close, together with
+ * the offset the active segment had reached. On startup only what was appended after the
+ * checkpoint is replayed; without a usable checkpoint every segment is scanned. A torn
+ * record at the end of a segment, left by a crash mid-write, is cut off.
+ * 
+ * Segment layout: magic, version, then records of body length, body and CRC32 of the body.
+ * A body holds the sequence number, the player id, the group name and the data. Records
+ * carry a global sequence number, so the newest record of a key wins whatever segment it is in.
+ * A deleted key gets a tombstone record without data, which stays indexed and is copied by
+ * compaction like any live record, so an older record of the key can never come back.
+ */
+class LogInventoryStorage implements InventoryStorage {
+    
+    private static final int SEGMENT_MAGIC = 0x4C57494C; // "LWIL"
+    private static final int CHECKPOINT_MAGIC = 0x4C574943; // "LWIC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_BODY_SIZE = 64 * 1024 * 1024;
+    
+    /** Group name under which the last group of a player is stored */
+    private static final String LAST_GROUP_KEY = "";
+    
+    private final File folder;
+    private final File checkpointFile;
+    private final long segmentSize;
+    private final double compactionThreshold;
+    private final Map<InventoryKey, Pointer> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    
+    // Held for reading while a segment is read, and for writing to close and delete segments
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    
+    // Guards appends, the sequence and segment counters and index updates
+    private final Object appendLock = new Object();
+    private Segment active;
+    private long nextSequence = 1;
+    private int nextSegmentId = 1;
+    private boolean appendedSinceCheckpoint;
+    
+    private final ScheduledExecutorService compactor;
+    
+    /**
+     * @param segmentSize Size after which the active segment is sealed and a new one started
+     * @param compactionThreshold Live fraction under which a sealed segment is compacted
+     * @param compactionIntervalMinutes Time between compaction and checkpoint runs
+     */
+    LogInventoryStorage(File folder, long segmentSize, double compactionThreshold, int compactionIntervalMinutes) throws IOException {
+        this.folder = folder;
+        this.checkpointFile = new File(folder, "index.dat");
+        this.segmentSize = Math.max(1024 * 1024, segmentSize);
+        this.compactionThreshold = Math.max(0.0, Math.min(1.0, compactionThreshold));
+        
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder);
+        }
+        recover();
+        
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LilWorlds-InventoryCompactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, compactionIntervalMinutes);
+        compactor.scheduleWithFixedDelay(this::runMaintenance, interval, interval, TimeUnit.MINUTES);
+    }
+    
+    @Override
+    public byte[] read(InventoryKey key) throws IOException {
+        segmentLock.readLock().lock();
+        try {
+            Pointer pointer = index.get(key);
+            if (pointer == null || pointer.tombstone) {
+                return null;
+            }
+            return readRecord(segments.get(pointer.segmentId), pointer).data;
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public Map<InventoryKey, byte[]> readAll(Collection<InventoryKey> keys) throws IOException {
+        Map<InventoryKey, byte[]> records = new HashMap<>();
+        for (InventoryKey key : keys) {
+            byte[] record = read(key);
+            if (record != null) {
+                records.put(key, record);
+            }
+        }
+        return records;
+    }
+    
+    @Override
+    public void writeAll(Map<InventoryKey, byte[]> records) throws IOException {
+        append(records);
+    }
+    
+    @Override
+    public void deleteAll(Collection<InventoryKey> keys) throws IOException {
+        Map<InventoryKey, byte[]> tombstones = new HashMap<>();
+        for (InventoryKey key : keys) {
+            Pointer pointer = index.get(key);
+            if (pointer != null && !pointer.tombstone) {
+                tombstones.put(key, null);
+            }
+        }
+        append(tombstones);
+    }
+    
+    @Override
+    public Collection<InventoryKey> keys() {
+        List<InventoryKey> keys = new ArrayList<>();
+        for (Map.Entry<InventoryKey, Pointer> entry : index.entrySet()) {
+            if (!entry.getValue().tombstone && !entry.getKey().groupName.equals(LAST_GROUP_KEY)) {
+                keys.add(entry.getKey());
+            }
+        }
+        return keys;
+    }
+    
+    @Override
+    public String readLastGroup(UUID playerId) throws IOException {
+        byte[] record = read(new InventoryKey(playerId, LAST_GROUP_KEY));
+        return record != null ? new String(record, StandardCharsets.UTF_8) : null;
+    }
+    
+    @Override
+    public void writeLastGroup(UUID playerId, String groupName) throws IOException {
+        Map<InventoryKey, byte[]> record = new HashMap<>();
+        record.put(new InventoryKey(playerId, LAST_GROUP_KEY), groupName.getBytes(StandardCharsets.UTF_8));
+        writeAll(record);
+    }
+    
+    /**
+     * Append records in one write and index them
+     * 
+     * @param records The records, a null value writes a tombstone
+     */
+    private void append(Map<InventoryKey, byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        synchronized (appendLock) {
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            List<InventoryKey> keys = new ArrayList<>(records.size());
+            List<long[]> placements = new ArrayList<>(records.size()); // Relative offset, length, sequence
+            List<Boolean> tombstones = new ArrayList<>(records.size());
+            for (Map.Entry<InventoryKey, byte[]> entry : records.entrySet()) {
+                long sequence = nextSequence++;
+                byte[] record = encodeRecord(entry.getKey(), sequence, entry.getValue());
+                keys.add(entry.getKey());
+                tombstones.add(entry.getValue() == null);
+                placements.add(new long[] {batch.size(), record.length, sequence});
+                batch.write(record);
+            }
+            
+            // The whole batch goes into one segment with a single sync
+            if (active.size > HEADER_SIZE && active.size + batch.size() > segmentSize) {
+                active = createSegment();
+            }
+            long base = active.size;
+            writeFully(active.channel, ByteBuffer.wrap(batch.toByteArray()), base);
+            active.channel.force(false);
+            active.size += batch.size();
+            appendedSinceCheckpoint = true;
+            
+            for (int i = 0; i < keys.size(); i++) {
+                long[] placement = placements.get(i);
+                install(keys.get(i), new Pointer(active.id, base + placement[0], (int) placement[1], placement[2],
+                    tombstones.get(i)));
+            }
+        }
+    }
+    
+    @Override
+    public String getDescription() {
+        long total = 0;
+        long live = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.size;
+            live += segment.liveBytes;
+        }
+        return String.format("log in %s/, %d segments, %.1f MB (%.0f%% live)", folder.getName(), segments.size(),
+            total / (1024.0 * 1024.0), total > 0 ? live * 100.0 / total : 100.0);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        writeCheckpoint();
+        segmentLock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+    
+    private void runMaintenance() {
+        try {
+            compact();
+            if (appendedSinceCheckpoint) {
+                writeCheckpoint();
+            }
+        } catch (Exception e) {
+            LoggerUtils.error("Error compacting inventory log", e);
+        }
+    }
+    
+    /**
+     * Copy the live records of mostly dead sealed segments into new segments and delete the old ones
+     */
+    void compact() throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        synchronized (appendLock) {
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.liveBytes <= (segment.size - HEADER_SIZE) * compactionThreshold) {
+                    candidates.add(segment);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        // Copy without holding the append lock, writes keep going to the active segment meanwhile
+        Map<InventoryKey, Pointer[]> moves = new HashMap<>();
+        List<Segment> outputs = new ArrayList<>();
+        Segment output = null;
+        for (Segment segment : candidates) {
+            for (ScannedRecord record : scan(segment.file, HEADER_SIZE).records) {
+                Pointer current = index.get(record.key);
+                if (current == null || current.segmentId != segment.id || current.offset != record.offset) {
+                    continue; // Superseded
+                }
+                
+                byte[] bytes = encodeRecord(record.key, record.sequence, record.data);
+                if (output == null || (output.size > HEADER_SIZE && output.size + bytes.length > segmentSize)) {
+                    synchronized (appendLock) {
+                        output = createSegment();
+                    }
+                    outputs.add(output);
+                }
+                writeFully(output.channel, ByteBuffer.wrap(bytes), output.size);
+                moves.put(record.key, new Pointer[] {current,
+                    new Pointer(output.id, output.size, bytes.length, record.sequence, record.data == null)});
+                output.size += bytes.length;
+            }
+        }
+        for (Segment written : outputs) {
+            written.channel.force(false);
+        }
+        
+        // Only keys still pointing at the copied record move, newer writes stay where they are
+        synchronized (appendLock) {
+            for (Map.Entry<InventoryKey, Pointer[]> move : moves.entrySet()) {
+                Pointer from = move.getValue()[0];
+                Pointer to = move.getValue()[1];
+                if (index.replace(move.getKey(), from, to)) {
+                    segments.get(from.segmentId).liveBytes -= from.length;
+                    segments.get(to.segmentId).liveBytes += to.length;
+                }
+            }
+        }
+        
+        // Nothing points into the old segments anymore, readers that fetched a pointer before the move hold the read lock
+        segmentLock.writeLock().lock();
+        try {
+            for (Segment segment : candidates) {
+                segments.remove(segment.id);
+                segment.channel.close();
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        
+        // The checkpoint must stop covering the old segments before they are deleted
+        writeCheckpoint();
+        for (Segment segment : candidates) {
+            Files.deleteIfExists(segment.file.toPath());
+        }
+        LoggerUtils.debug("Compacted " + candidates.size() + " inventory log segments, moved " + moves.size() + " records");
+    }
+    
+    private void install(InventoryKey key, Pointer pointer) {
+        Pointer previous = index.get(key);
+        if (previous != null && previous.sequence >= pointer.sequence) {
+            return; // Not newer than what is indexed, dead on arrival
+        }
+        index.put(key, pointer);
+        if (previous != null) {
+            Segment previousSegment = segments.get(previous.segmentId);
+            if (previousSegment != null) {
+                previousSegment.liveBytes -= previous.length;
+            }
+        }
+        segments.get(pointer.segmentId).liveBytes += pointer.length;
+    }
+    
+    /**
+     * Open every segment and rebuild the index, from the checkpoint if it is usable
+     */
+    private void recover() throws IOException {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".log"));
+        if (files != null) {
+            for (File file : files) {
+                int id;
+                try {
+                    id = Integer.parseInt(file.getName().substring(8, file.getName().length() - 4));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (!isSegment(file)) {
+                    LoggerUtils.warn("Ignoring inventory log segment without a valid header: " + file.getName());
+                    continue;
+                }
+                segments.put(id, openSegment(id, file));
+                nextSegmentId = Math.max(nextSegmentId, id + 1);
+            }
+        }
+        
+        Checkpoint checkpoint = readCheckpoint();
+        for (Segment segment : segments.values()) {
+            long from = HEADER_SIZE;
+            if (checkpoint != null && checkpoint.covered.contains(segment.id)) {
+                continue;
+            }
+            if (checkpoint != null && checkpoint.activeSegmentId == segment.id) {
+                from = checkpoint.activeOffset;
+            }
+            replay(segment, from);
+        }
+        
+        // Append to the newest segment if its end was just verified and it is not full
+        Map.Entry<Integer, Segment> newest = segments.lastEntry();
+        boolean verified = newest != null && (checkpoint == null || !checkpoint.covered.contains(newest.getKey()));
+        if (verified && newest.getValue().size < segmentSize) {
+            active = newest.getValue();
+        } else {
+            active = createSegment();
+        }
+        LoggerUtils.info("Inventory log opened: " + index.size() + " records in " + segments.size() + " segments" +
+            (checkpoint == null && !index.isEmpty() ? ", rebuilt without checkpoint" : ""));
+    }
+    
+    /**
+     * Index the records of a segment from an offset and cut off a torn tail
+     */
+    private void replay(Segment segment, long from) throws IOException {
+        ScanResult result = scan(segment.file, from);
+        for (ScannedRecord record : result.records) {
+            install(record.key, new Pointer(segment.id, record.offset, record.length, record.sequence, record.data == null));
+            nextSequence = Math.max(nextSequence, record.sequence + 1);
+        }
+        if (result.end < segment.channel.size()) {
+            LoggerUtils.warn("Truncating " + (segment.channel.size() - result.end) + " bytes of incomplete records from " +
+                segment.file.getName());
+            segment.channel.truncate(result.end);
+        }
+        segment.size = result.end;
+    }
+    
+    /**
+     * Load the checkpoint into the index
+     * 
+     * @return The checkpoint, or null if there is none or it does not match the segments on disk
+     */
+    private Checkpoint readCheckpoint() {
+        if (!checkpointFile.exists()) {
+            return null;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.activeSegmentId = in.readInt();
+            checkpoint.activeOffset = in.readLong();
+            long sequence = in.readLong();
+            int coveredCount = in.readInt();
+            for (int i = 0; i < coveredCount; i++) {
+                checkpoint.covered.add(in.readInt());
+            }
+            
+            // Every segment the checkpoint relies on must still be there as it was
+            Segment activeSegment = segments.get(checkpoint.activeSegmentId);
+            if (activeSegment == null || activeSegment.channel.size() < checkpoint.activeOffset) {
+                return null;
+            }
+            for (int id : checkpoint.covered) {
+                if (!segments.containsKey(id)) {
+                    return null;
+                }
+            }
+            
+            int count = in.readInt();
+            Map<InventoryKey, Pointer> loaded = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                InventoryKey key = new InventoryKey(new UUID(in.readLong(), in.readLong()), in.readUTF());
+                int segmentId = in.readInt();
+                long offset = in.readLong();
+                int length = in.readInt(); // Negative for tombstones
+                Pointer pointer = new Pointer(segmentId, offset, Math.abs(length), in.readLong(), length < 0);
+                if (!segments.containsKey(pointer.segmentId)) {
+                    return null;
+                }
+                loaded.put(key, pointer);
+            }
+            
+            for (Map.Entry<InventoryKey, Pointer> entry : loaded.entrySet()) {
+                install(entry.getKey(), entry.getValue());
+            }
+            nextSequence = Math.max(nextSequence, sequence);
+            return checkpoint;
+        } catch (IOException e) {
+            LoggerUtils.warn("Inventory log checkpoint unusable, scanning all segments: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Write the index and how far it covers the segments
+     */
+    private void writeCheckpoint() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            synchronized (appendLock) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(active.id);
+                out.writeLong(active.size);
+                out.writeLong(nextSequence);
+                out.writeInt(segments.size() - 1);
+                for (Segment segment : segments.values()) {
+                    if (segment != active) {
+                        out.writeInt(segment.id);
+                    }
+                }
+                out.writeInt(index.size());
+                for (Map.Entry<InventoryKey, Pointer> entry : index.entrySet()) {
+                    out.writeLong(entry.getKey().playerId.getMostSignificantBits());
+                    out.writeLong(entry.getKey().playerId.getLeastSignificantBits());
+                    out.writeUTF(entry.getKey().groupName);
+                    Pointer pointer = entry.getValue();
+                    out.writeInt(pointer.segmentId);
+                    out.writeLong(pointer.offset);
+                    out.writeInt(pointer.tombstone ? -pointer.length : pointer.length);
+                    out.writeLong(pointer.sequence);
+                }
+                appendedSinceCheckpoint = false;
+            }
+        }
+        FileUtils.writeAtomically(checkpointFile, bytes.toByteArray());
+    }
+    
+    private Segment createSegment() throws IOException {
+        int id = nextSegmentId++;
+        File file = new File(folder, String.format("segment-%08d.log", id));
+        Segment segment = openSegment(id, file);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(SEGMENT_MAGIC).putInt(VERSION);
+        header.flip();
+        writeFully(segment.channel, header, 0);
+        segment.channel.force(true);
+        segment.size = HEADER_SIZE;
+        segments.put(id, segment);
+        return segment;
+    }
+    
+    private static Segment openSegment(int id, File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, file, channel);
+        segment.size = channel.size();
+        return segment;
+    }
+    
+    private static boolean isSegment(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == SEGMENT_MAGIC && in.readInt() == VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * @param data The data, or null for a tombstone
+     */
+    private static byte[] encodeRecord(InventoryKey key, long sequence, byte[] data) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream((data != null ? data.length : 0) + 64);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeLong(sequence);
+            out.writeLong(key.playerId.getMostSignificantBits());
+            out.writeLong(key.playerId.getLeastSignificantBits());
+            out.writeUTF(key.groupName);
+            if (data != null) {
+                out.writeInt(data.length);
+                out.write(data);
+            } else {
+                out.writeInt(-1);
+            }
+        }
+        byte[] bodyBytes = body.toByteArray();
+        
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+        ByteBuffer record = ByteBuffer.allocate(bodyBytes.length + 8);
+        record.putInt(bodyBytes.length).put(bodyBytes).putInt((int) crc.getValue());
+        return record.array();
+    }
+    
+    private static ScannedRecord decodeBody(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        ScannedRecord record = new ScannedRecord();
+        record.sequence = in.readLong();
+        record.key = new InventoryKey(new UUID(in.readLong(), in.readLong()), in.readUTF());
+        int length = in.readInt();
+        if (length >= 0) {
+            record.data = new byte[length];
+            in.readFully(record.data);
+        } else if (length != -1) {
+            throw new IOException("Invalid record length " + length);
+        }
+        return record;
+    }
+    
+    private static ScannedRecord readRecord(Segment segment, Pointer pointer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(pointer.length);
+        readFully(segment.channel, buffer, pointer.offset);
+        buffer.flip();
+        byte[] body = new byte[buffer.getInt()];
+        buffer.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if (buffer.getInt() != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch in " + segment.file.getName() + " at " + pointer.offset);
+        }
+        return decodeBody(body);
+    }
+    
+    /**
+     * Read the intact records of a segment file from an offset, stopping at the first torn or corrupt one
+     */
+    private static ScanResult scan(File file, long from) throws IOException {
+        ScanResult result = new ScanResult();
+        result.end = from;
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            DataInputStream in = new DataInputStream(stream);
+            long skipped = 0;
+            while (skipped < from) {
+                long step = in.skip(from - skipped);
+                if (step <= 0) {
+                    return result;
+                }
+                skipped += step;
+            }
+            
+            long position = from;
+            while (true) {
+                ScannedRecord record;
+                int bodyLength;
+                try {
+                    bodyLength = in.readInt();
+                    if (bodyLength <= 0 || bodyLength > MAX_BODY_SIZE) {
+                        break;
+                    }
+                    byte[] body = new byte[bodyLength];
+                    in.readFully(body);
+                    int checksum = in.readInt();
+                    CRC32 crc = new CRC32();
+                    crc.update(body);
+                    if (checksum != (int) crc.getValue()) {
+                        break;
+                    }
+                    record = decodeBody(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                record.offset = position;
+                record.length = bodyLength + 8;
+                result.records.add(record);
+                position += record.length;
+                result.end = position;
+            }
+        }
+        return result;
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Record past the end of the segment");
+            }
+            position += read;
+        }
+    }
+    
+    private static final class Segment {
+        final int id;
+        final File file;
+        final FileChannel channel;
+        volatile long size;       // Bytes written, including the header
+        volatile long liveBytes;  // Bytes of records the index points at, updated under the append lock
+        
+        Segment(int id, File file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+    
+    private static final class Pointer {
+        final int segmentId;
+        final long offset;
+        final int length;
+        final long sequence;
+        final boolean tombstone;
+        
+        Pointer(int segmentId, long offset, int length, long sequence, boolean tombstone) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+            this.sequence = sequence;
+            this.tombstone = tombstone;
+        }
+    }
+    
+    private static final class ScannedRecord {
+        InventoryKey key;
+        long sequence;
+        byte[] data;          // Null for tombstones
+        long offset;
+        int length;
+    }
+    
+    private static final class ScanResult {
+        final List<ScannedRecord> records = new ArrayList<>();
+        long end;
+    }
+    
+    private static final class Checkpoint {
+        int activeSegmentId;
+        long activeOffset;
+        final Set<Integer> covered = new HashSet<>();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package org.hydr4.lilworlds.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps records in memory only, everything is lost on restart
+ * Meant for test servers and for measuring the rest of the pipeline without disk I/O.
+ */
+class MemoryInventoryStorage implements InventoryStorage {
+    
+    private final Map<InventoryKey, byte[]> records = new ConcurrentHashMap<>();
+    private final Map<UUID, String> lastGroups = new ConcurrentHashMap<>();
+    
+    @Override
+    public byte[] read(InventoryKey key) {
+        return records.get(key);
+    }
+    
+    @Override
+    public Map<InventoryKey, byte[]> readAll(Collection<InventoryKey> keys) {
+        Map<InventoryKey, byte[]> found = new HashMap<>();
+        for (InventoryKey key : keys) {
+            byte[] record = records.get(key);
+            if (record != null) {
+                found.put(key, record);
+            }
+        }
+        return found;
+    }
+    
+    @Override
+    public void writeAll(Map<InventoryKey, byte[]> batch) {
+        records.putAll(batch);
+    }
+    
+    @Override
+    public void deleteAll(Collection<InventoryKey> keys) {
+        records.keySet().removeAll(keys);
+    }
+    
+    @Override
+    public Collection<InventoryKey> keys() {
+        return new ArrayList<>(records.keySet());
+    }
+    
+    @Override
+    public String readLastGroup(UUID playerId) {
+        return lastGroups.get(playerId);
+    }
+    
+    @Override
+    public void writeLastGroup(UUID playerId, String groupName) {
+        lastGroups.put(playerId, groupName);
+    }
+    
+    @Override
+    public String getDescription() {
+        return "memory, " + records.size() + " records";
+    }
+    
+    @Override
+    public void close() {
+        records.clear();
+        lastGroups.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+
+/**
+ * Player state stored for one world group
+ */
+class PlayerData {
+    ItemStack[] inventory;
+    ItemStack[] armorContents;
+    ItemStack[] extraContents;
+    ItemStack[] enderChest;
+    
+    double health;
+    double maxHealth;
+    int foodLevel;
+    float saturation;
+    float exhaustion;
+    
+    float exp;
+    int level;
+    int totalExperience;
+    
+    GameMode gameMode;
+    
+    boolean allowFlight;
+    boolean flying;
+    float flySpeed;
+    float walkSpeed;
+    
+    PotionEffect[] potionEffects;
+    SavedLocation location;
+    
+    /**
+     * Copy an item array and every stack in it, the arrays the API returns hold live items
+     */
+    static ItemStack[] copyItems(ItemStack[] items) {
+        ItemStack[] copy = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = items[i] != null ? items[i].clone() : null;
+        }
+        return copy;
+    }
+    
+    /**
+     * Get the cache weight, one for the data itself plus one per item stack
+     */
+    int getWeight() {
+        return 1 + countItems(inventory) + countItems(armorContents) + countItems(extraContents) + countItems(enderChest);
+    }
+    
+    private static int countItems(ItemStack[] items) {
+        if (items == null) {
+            return 0;
+        }
+        int count = 0;
+        for (ItemStack item : items) {
+            if (item != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Location by world name, so encoding it never touches a world that may be unloading
+     */
+    static final class SavedLocation {
+        final String world;
+        final double x;
+        final double y;
+        final double z;
+        final float yaw;
+        final float pitch;
+        
+        SavedLocation(String world, double x, double y, double z, float yaw, float pitch) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+        
+        /**
+         * @return The saved location, or null if it has no world
+         */
+        static SavedLocation of(Location location) {
+            World world = location.getWorld();
+            if (world == null) {
+                return null;
+            }
+            return new SavedLocation(world.getName(), location.getX(), location.getY(), location.getZ(),
+                location.getYaw(), location.getPitch());
+        }
+        
+        /**
+         * @return The location, or null if its world is not loaded
+         */
+        Location toLocation() {
+            World loaded = Bukkit.getWorld(world);
+            return loaded != null ? new Location(loaded, x, y, z, yaw, pitch) : null;
+        }
+    }
+    
+    /**
+     * Create the data of a player who never visited a group
+     */
+    static PlayerData createDefault() {
+        PlayerData data = new PlayerData();
+        
+        data.inventory = new ItemStack[36];
+        data.armorContents = new ItemStack[4];
+        data.extraContents = new ItemStack[1];
+        
+        data.health = 20.0;
+        data.maxHealth = 20.0;
+        data.foodLevel = 20;
+        data.saturation = 5.0f;
+        data.exhaustion = 0.0f;
+        
+        data.exp = 0.0f;
+        data.level = 0;
+        data.totalExperience = 0;
+        
+        data.gameMode = GameMode.SURVIVAL;
+        
+        data.allowFlight = false;
+        data.flying = false;
+        data.flySpeed = 0.1f;
+        data.walkSpeed = 0.2f;
+        
+        data.potionEffects = new PotionEffect[0];
+        
+        return data;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+package org.hydr4.lilworlds.managers;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded cache of player data by player and world group
+ * Entries expire after a period without access and the least recently used ones are dropped
+ * once the total weight, roughly the number of cached item stacks, goes over the limit.
+ * Dirty entries are handed to the flusher first and stay cached if it cannot take them.
+ * Reads started off the main thread are only cached if the entry did not change while they ran.
+ */
+class PlayerDataCache {
+    
+    private final Flusher flusher;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Object> reads = new HashMap<>();
+    
+    private long expireAfterMillis;
+    private long maxWeight;
+    private long totalWeight;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    /**
+     * Takes dirty data before it is evicted
+     */
+    interface Flusher {
+        /**
+         * @return Whether the data is safe now and the entry can be dropped
+         */
+        boolean flush(UUID playerId, String groupName, PlayerData data);
+    }
+    
+    PlayerDataCache(Flusher flusher) {
+        this.flusher = flusher;
+    }
+    
+    /**
+     * @param expireAfterMillis Time without access before an entry expires, 0 to never expire
+     * @param maxWeight Total weight above which entries are evicted, 0 for no limit
+     */
+    synchronized void configure(long expireAfterMillis, long maxWeight) {
+        this.expireAfterMillis = expireAfterMillis;
+        this.maxWeight = maxWeight;
+        evictOverweight();
+    }
+    
+    synchronized PlayerData get(UUID playerId, String groupName) {
+        Entry entry = entries.get(key(playerId, groupName));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.data;
+    }
+    
+    /**
+     * Check for an entry without counting a hit or miss or refreshing its expiry
+     */
+    synchronized boolean contains(UUID playerId, String groupName) {
+        return entries.containsKey(key(playerId, groupName));
+    }
+    
+    /**
+     * Start reading a player's stored data, to be cached with {@link #putRead} once read
+     * 
+     * @return The read, replaced by a later read of the same player and group
+     */
+    synchronized Object startRead(UUID playerId, String groupName) {
+        Object read = new Object();
+        reads.put(key(playerId, groupName), read);
+        return read;
+    }
+    
+    /**
+     * Cache clean data read since {@link #startRead}, unless the player and group already have an entry
+     * The data is dropped if the entry was saved or removed meanwhile, it may be older than that save.
+     */
+    synchronized void putRead(UUID playerId, String groupName, Object read, PlayerData data) {
+        String key = key(playerId, groupName);
+        if (reads.remove(key, read) && !entries.containsKey(key)) {
+            put(playerId, groupName, data, false);
+        }
+    }
+    
+    /**
+     * Cache data, replacing any entry of the same player and group
+     * 
+     * @param dirty Whether the data still has to be flushed before it can be evicted
+     */
+    synchronized void put(UUID playerId, String groupName, PlayerData data, boolean dirty) {
+        String key = key(playerId, groupName);
+        reads.remove(key);
+        Entry entry = new Entry(playerId, groupName, data, dirty);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += entry.weight;
+        evictOverweight();
+    }
+    
+    /**
+     * Drop an entry without flushing it
+     */
+    synchronized void remove(UUID playerId, String groupName) {
+        String key = key(playerId, groupName);
+        reads.remove(key);
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+        }
+    }
+    
+    /**
+     * Drop every entry of a player without flushing them
+     */
+    synchronized void removePlayer(UUID playerId) {
+        String prefix = playerId.toString() + ":";
+        reads.keySet().removeIf(key -> key.startsWith(prefix));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.playerId.equals(playerId)) {
+                totalWeight -= entry.weight;
+                iterator.remove();
+            }
+        }
+    }
+    
+    synchronized void clear() {
+        entries.clear();
+        reads.clear();
+        totalWeight = 0;
+    }
+    
+    /**
+     * Evict entries that were not accessed within the expiry time
+     */
+    synchronized void evictExpired() {
+        if (expireAfterMillis <= 0) {
+            return;
+        }
+        
+        long cutoff = System.currentTimeMillis() - expireAfterMillis;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.lastAccess > cutoff) {
+                break; // Access order, everything after this was used more recently
+            }
+            if (evict(entry)) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    synchronized int size() {
+        return entries.size();
+    }
+    
+    synchronized String getStats() {
+        long requests = hits + misses;
+        return entries.size() + " entries, weight " + totalWeight + (maxWeight > 0 ? "/" + maxWeight : "") +
+               ", " + hits + " hits, " + misses + " misses" +
+               (requests > 0 ? String.format(" (%.1f%% hit rate)", hits * 100.0 / requests) : "") +
+               ", " + evictions + " evictions";
+    }
+    
+    private void evictOverweight() {
+        if (maxWeight <= 0 || totalWeight <= maxWeight) {
+            return;
+        }
+        
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (evict(entry)) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Flush an entry if needed and account for its removal
+     * 
+     * @return Whether the caller should remove the entry
+     */
+    private boolean evict(Entry entry) {
+        if (entry.dirty && !flusher.flush(entry.playerId, entry.groupName, entry.data)) {
+            return false;
+        }
+        totalWeight -= entry.weight;
+        evictions++;
+        return true;
+    }
+    
+    private static String key(UUID playerId, String groupName) {
+        return playerId.toString() + ":" + groupName;
+    }
+    
+    private static class Entry {
+        final UUID playerId;
+        final String groupName;
+        final PlayerData data;
+        final int weight;
+        final boolean dirty;
+        long lastAccess;
+        
+        Entry(UUID playerId, String groupName, PlayerData data, boolean dirty) {
+            this.playerId = playerId;
+            this.groupName = groupName;
+            this.data = data;
+            this.weight = data.getWeight();
+            this.dirty = dirty;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,600 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.GameMode;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+import org.hydr4.lilworlds.utils.LoggerUtils;
+import org.hydr4.lilworlds.utils.ServerUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary format of PlayerData files
+ * A file is a header followed by tagged, length-prefixed sections. Readers skip sections they
+ * do not know and keep defaults for sections that are missing, so fields can be added or
+ * dropped without breaking files written by other versions.
+ * Full records carry a snapshot id. A delta record names the snapshot it is based on and
+ * holds only the item slots that changed since, plus the small sections, which it replaces.
+ * Items may be stored apart in the ItemBlobStore, the record then holds only their hash.
+ */
+final class PlayerDataCodec {
+    
+    private static final int MAGIC = 0x4C575044; // "LWPD"
+    private static final int VERSION = 1;
+    private static final int FLAG_COMPRESSED = 1;
+    
+    // Section ids, never reuse a retired id
+    private static final int SECTION_END = 0;
+    private static final int SECTION_INVENTORY = 1;
+    private static final int SECTION_ARMOR = 2;
+    private static final int SECTION_EXTRA = 3;
+    private static final int SECTION_ENDER_CHEST = 4;
+    private static final int SECTION_HEALTH = 5;
+    private static final int SECTION_EXPERIENCE = 6;
+    private static final int SECTION_GAMEMODE = 7;
+    private static final int SECTION_FLIGHT = 8;
+    private static final int SECTION_POTION_EFFECTS = 9;
+    private static final int SECTION_LOCATION = 10;
+    private static final int SECTION_SNAPSHOT = 11;
+    private static final int SECTION_BASE = 12;
+    private static final int SECTION_INVENTORY_CHANGES = 13;
+    private static final int SECTION_ARMOR_CHANGES = 14;
+    private static final int SECTION_EXTRA_CHANGES = 15;
+    private static final int SECTION_ENDER_CHEST_CHANGES = 16;
+    
+    // Item encodings
+    private static final int ITEM_EMPTY = 0;
+    private static final int ITEM_PAPER = 1;  // ItemStack#serializeAsBytes, Paper only
+    private static final int ITEM_BUKKIT = 2; // Java serialization through BukkitObjectOutputStream
+    private static final int ITEM_BLOB = 3;   // Hash of a payload in the ItemBlobStore
+    
+    private static boolean warnedPaperItems = false;
+    
+    private PlayerDataCodec() {
+    }
+    
+    /**
+     * Encode player data as a full record
+     * 
+     * @param snapshotId Id delta records refer to, 0 for none
+     * @param compress Deflate everything after the header
+     * @param blobs Collects items stored apart, null to write every item inline
+     */
+    static byte[] encode(PlayerData data, long snapshotId, boolean compress, ItemBlobStore.Batch blobs) throws IOException {
+        return encode(compress, out -> {
+            if (snapshotId != 0) {
+                writeSection(out, SECTION_SNAPSHOT, section -> section.writeLong(snapshotId));
+            }
+            writeItemSections(out, data, blobs);
+            writeSections(out, data);
+        });
+    }
+    
+    /**
+     * Encode the changes of player data since a full record
+     * Only valid if countChangedSlots accepted the two snapshots.
+     * 
+     * @param base The data of the full record
+     * @param baseId Snapshot id of the full record
+     */
+    static byte[] encodeDelta(PlayerData data, PlayerData base, long baseId, boolean compress,
+                              ItemBlobStore.Batch blobs) throws IOException {
+        return encode(compress, out -> {
+            writeSection(out, SECTION_BASE, section -> section.writeLong(baseId));
+            writeChanges(out, SECTION_INVENTORY_CHANGES, data.inventory, base.inventory, blobs);
+            writeChanges(out, SECTION_ARMOR_CHANGES, data.armorContents, base.armorContents, blobs);
+            writeChanges(out, SECTION_EXTRA_CHANGES, data.extraContents, base.extraContents, blobs);
+            writeChanges(out, SECTION_ENDER_CHEST_CHANGES, data.enderChest, base.enderChest, blobs);
+            writeSections(out, data);
+        });
+    }
+    
+    /**
+     * Count the item slots that differ between player data and the data of a full record
+     * 
+     * @return The number of changed slots, or -1 if the two hold different arrays or optional
+     *         fields, which a delta can't express
+     */
+    static int countChangedSlots(PlayerData data, PlayerData base) {
+        if ((data.gameMode == null) != (base.gameMode == null)
+                || (data.potionEffects == null) != (base.potionEffects == null)
+                || (data.location == null) != (base.location == null)) {
+            return -1;
+        }
+        
+        int changed = 0;
+        ItemStack[][] arrays = {data.inventory, data.armorContents, data.extraContents, data.enderChest};
+        ItemStack[][] baseArrays = {base.inventory, base.armorContents, base.extraContents, base.enderChest};
+        for (int i = 0; i < arrays.length; i++) {
+            if (arrays[i] == null || baseArrays[i] == null) {
+                if (arrays[i] != baseArrays[i]) {
+                    return -1;
+                }
+                continue;
+            }
+            if (arrays[i].length != baseArrays[i].length) {
+                return -1;
+            }
+            for (int slot = 0; slot < arrays[i].length; slot++) {
+                if (!Objects.equals(arrays[i][slot], baseArrays[i][slot])) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Get the total number of item slots in player data
+     */
+    static int countSlots(PlayerData data) {
+        return length(data.inventory) + length(data.armorContents) + length(data.extraContents) + length(data.enderChest);
+    }
+    
+    /**
+     * Decode a full record and apply a delta record on top of it
+     * Missing sections keep the values of PlayerData#createDefault. A delta based on another
+     * snapshot than the full record is outdated and ignored.
+     * 
+     * @param delta The delta record, or null
+     * @param blobs Resolves items stored apart and shares identical decoded items
+     * @throws IOException if either record is not player data or is truncated
+     */
+    static PlayerData decode(byte[] bytes, byte[] delta, ItemBlobStore blobs) throws IOException {
+        PlayerData data = PlayerData.createDefault();
+        long snapshotId;
+        try (DataInputStream in = openSections(bytes)) {
+            snapshotId = readSections(in, data, blobs);
+        }
+        if (delta == null) {
+            return data;
+        }
+        
+        try (DataInputStream in = openSections(delta)) {
+            // The base section is always first, nothing is applied before it was checked
+            if (in.readUnsignedByte() != SECTION_BASE || in.readInt() != Long.BYTES) {
+                throw new IOException("Not a player data delta");
+            }
+            long baseId = in.readLong();
+            if (snapshotId == 0 || baseId != snapshotId) {
+                LoggerUtils.debug("Ignoring player data delta of an older snapshot");
+                return data;
+            }
+            readSections(in, data, blobs);
+        }
+        return data;
+    }
+    
+    /**
+     * Add the hashes of the items a record stores apart, without decoding the items
+     */
+    static void collectBlobHashes(byte[] bytes, Set<String> hashes) throws IOException {
+        try (DataInputStream in = openSections(bytes)) {
+            int id;
+            while ((id = in.readUnsignedByte()) != SECTION_END) {
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                DataInputStream section = new DataInputStream(new ByteArrayInputStream(payload));
+                
+                if (id == SECTION_INVENTORY || id == SECTION_ARMOR || id == SECTION_EXTRA || id == SECTION_ENDER_CHEST) {
+                    int count = section.readUnsignedShort();
+                    for (int i = 0; i < count; i++) {
+                        skipItem(section, hashes);
+                    }
+                } else if (id == SECTION_INVENTORY_CHANGES || id == SECTION_ARMOR_CHANGES
+                        || id == SECTION_EXTRA_CHANGES || id == SECTION_ENDER_CHEST_CHANGES) {
+                    section.readUnsignedShort();
+                    int count = section.readUnsignedShort();
+                    for (int i = 0; i < count; i++) {
+                        section.readUnsignedShort();
+                        skipItem(section, hashes);
+                    }
+                }
+            }
+        }
+    }
+    
+    private static byte[] encode(boolean compress, SectionWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeByte(compress ? FLAG_COMPRESSED : 0);
+        header.flush();
+        
+        if (compress) {
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                writer.write(out);
+                out.writeByte(SECTION_END);
+            }
+        } else {
+            DataOutputStream out = new DataOutputStream(bytes);
+            writer.write(out);
+            out.writeByte(SECTION_END);
+            out.flush();
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Check the header of a record and open its sections
+     */
+    private static DataInputStream openSections(byte[] bytes) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a player data file");
+        }
+        int version = header.readUnsignedShort();
+        if (version > VERSION) {
+            // Newer files only add sections, which are skipped below
+            LoggerUtils.debug("Reading player data version " + version + " with version " + VERSION + " reader");
+        }
+        int flags = header.readUnsignedByte();
+        
+        InputStream body = header;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            body = new InflaterInputStream(header);
+        }
+        return new DataInputStream(body);
+    }
+    
+    private static void writeItemSections(DataOutputStream out, PlayerData data, ItemBlobStore.Batch blobs) throws IOException {
+        if (data.inventory != null) {
+            writeSection(out, SECTION_INVENTORY, section -> writeItems(section, data.inventory, blobs));
+        }
+        if (data.armorContents != null) {
+            writeSection(out, SECTION_ARMOR, section -> writeItems(section, data.armorContents, blobs));
+        }
+        if (data.extraContents != null) {
+            writeSection(out, SECTION_EXTRA, section -> writeItems(section, data.extraContents, blobs));
+        }
+        if (data.enderChest != null) {
+            writeSection(out, SECTION_ENDER_CHEST, section -> writeItems(section, data.enderChest, blobs));
+        }
+    }
+    
+    /**
+     * Write the sections other than items, which full and delta records share
+     */
+    private static void writeSections(DataOutputStream out, PlayerData data) throws IOException {
+        writeSection(out, SECTION_HEALTH, section -> {
+            section.writeDouble(data.health);
+            section.writeDouble(data.maxHealth);
+            section.writeInt(data.foodLevel);
+            section.writeFloat(data.saturation);
+            section.writeFloat(data.exhaustion);
+        });
+        writeSection(out, SECTION_EXPERIENCE, section -> {
+            section.writeFloat(data.exp);
+            section.writeInt(data.level);
+            section.writeInt(data.totalExperience);
+        });
+        if (data.gameMode != null) {
+            writeSection(out, SECTION_GAMEMODE, section -> section.writeUTF(data.gameMode.name()));
+        }
+        writeSection(out, SECTION_FLIGHT, section -> {
+            section.writeBoolean(data.allowFlight);
+            section.writeBoolean(data.flying);
+            section.writeFloat(data.flySpeed);
+            section.writeFloat(data.walkSpeed);
+        });
+        
+        if (data.potionEffects != null) {
+            writeSection(out, SECTION_POTION_EFFECTS, section -> {
+                section.writeShort(data.potionEffects.length);
+                for (PotionEffect effect : data.potionEffects) {
+                    NamespacedKey key = effect.getType().getKey();
+                    section.writeUTF(key.getNamespace() + ":" + key.getKey());
+                    section.writeInt(effect.getDuration());
+                    section.writeInt(effect.getAmplifier());
+                    section.writeBoolean(effect.isAmbient());
+                    section.writeBoolean(effect.hasParticles());
+                    section.writeBoolean(effect.hasIcon());
+                }
+            });
+        }
+        
+        if (data.location != null) {
+            PlayerData.SavedLocation location = data.location;
+            writeSection(out, SECTION_LOCATION, section -> {
+                section.writeUTF(location.world);
+                section.writeDouble(location.x);
+                section.writeDouble(location.y);
+                section.writeDouble(location.z);
+                section.writeFloat(location.yaw);
+                section.writeFloat(location.pitch);
+            });
+        }
+    }
+    
+    /**
+     * Read sections into player data, item changes are applied to the arrays already there
+     * 
+     * @return The snapshot id of a full record, 0 if it has none
+     */
+    private static long readSections(DataInputStream in, PlayerData data, ItemBlobStore blobs) throws IOException {
+        long snapshotId = 0;
+        int id;
+        while ((id = in.readUnsignedByte()) != SECTION_END) {
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            DataInputStream section = new DataInputStream(new ByteArrayInputStream(payload));
+            
+            switch (id) {
+                case SECTION_INVENTORY:
+                    data.inventory = readItems(section, blobs);
+                    break;
+                case SECTION_ARMOR:
+                    data.armorContents = readItems(section, blobs);
+                    break;
+                case SECTION_EXTRA:
+                    data.extraContents = readItems(section, blobs);
+                    break;
+                case SECTION_ENDER_CHEST:
+                    data.enderChest = readItems(section, blobs);
+                    break;
+                case SECTION_HEALTH:
+                    data.health = section.readDouble();
+                    data.maxHealth = section.readDouble();
+                    data.foodLevel = section.readInt();
+                    data.saturation = section.readFloat();
+                    data.exhaustion = section.readFloat();
+                    break;
+                case SECTION_EXPERIENCE:
+                    data.exp = section.readFloat();
+                    data.level = section.readInt();
+                    data.totalExperience = section.readInt();
+                    break;
+                case SECTION_GAMEMODE:
+                    try {
+                        data.gameMode = GameMode.valueOf(section.readUTF());
+                    } catch (IllegalArgumentException e) {
+                        data.gameMode = GameMode.SURVIVAL;
+                    }
+                    break;
+                case SECTION_FLIGHT:
+                    data.allowFlight = section.readBoolean();
+                    data.flying = section.readBoolean();
+                    data.flySpeed = section.readFloat();
+                    data.walkSpeed = section.readFloat();
+                    break;
+                case SECTION_POTION_EFFECTS:
+                    data.potionEffects = readPotionEffects(section);
+                    break;
+                case SECTION_LOCATION:
+                    data.location = new PlayerData.SavedLocation(section.readUTF(), section.readDouble(),
+                        section.readDouble(), section.readDouble(), section.readFloat(), section.readFloat());
+                    break;
+                case SECTION_SNAPSHOT:
+                    snapshotId = section.readLong();
+                    break;
+                case SECTION_INVENTORY_CHANGES:
+                    readChanges(section, data.inventory, blobs);
+                    break;
+                case SECTION_ARMOR_CHANGES:
+                    readChanges(section, data.armorContents, blobs);
+                    break;
+                case SECTION_EXTRA_CHANGES:
+                    readChanges(section, data.extraContents, blobs);
+                    break;
+                case SECTION_ENDER_CHEST_CHANGES:
+                    readChanges(section, data.enderChest, blobs);
+                    break;
+                default:
+                    // Written by a newer version, the payload was already skipped
+                    break;
+            }
+        }
+        return snapshotId;
+    }
+    
+    private static void writeSection(DataOutputStream out, int id, SectionWriter writer) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream section = new DataOutputStream(buffer);
+        writer.write(section);
+        section.flush();
+        
+        out.writeByte(id);
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+    }
+    
+    private static void writeItems(DataOutputStream out, ItemStack[] items, ItemBlobStore.Batch blobs) throws IOException {
+        out.writeShort(items.length);
+        for (ItemStack item : items) {
+            writeItem(out, item, blobs);
+        }
+    }
+    
+    private static ItemStack[] readItems(DataInputStream in, ItemBlobStore blobs) throws IOException {
+        ItemStack[] items = new ItemStack[in.readUnsignedShort()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = readItem(in, blobs);
+        }
+        return items;
+    }
+    
+    /**
+     * Write the slots of an item array that differ from the base array, if any
+     */
+    private static void writeChanges(DataOutputStream out, int id, ItemStack[] items, ItemStack[] base,
+                                     ItemBlobStore.Batch blobs) throws IOException {
+        if (items == null) {
+            return;
+        }
+        List<Integer> changed = new ArrayList<>();
+        for (int slot = 0; slot < items.length; slot++) {
+            if (!Objects.equals(items[slot], base[slot])) {
+                changed.add(slot);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        
+        writeSection(out, id, section -> {
+            section.writeShort(items.length);
+            section.writeShort(changed.size());
+            for (int slot : changed) {
+                section.writeShort(slot);
+                writeItem(section, items[slot], blobs);
+            }
+        });
+    }
+    
+    private static void readChanges(DataInputStream in, ItemStack[] items, ItemBlobStore blobs) throws IOException {
+        int length = in.readUnsignedShort();
+        if (items == null || items.length != length) {
+            throw new IOException("Player data delta does not match its snapshot");
+        }
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int slot = in.readUnsignedShort();
+            ItemStack item = readItem(in, blobs);
+            if (slot < items.length) {
+                items[slot] = item;
+            }
+        }
+    }
+    
+    private static int length(ItemStack[] items) {
+        return items != null ? items.length : 0;
+    }
+    
+    private static void writeItem(DataOutputStream out, ItemStack item, ItemBlobStore.Batch blobs) throws IOException {
+        if (item == null || item.getType() == null || item.getType().isAir() || item.getAmount() <= 0) {
+            out.writeByte(ITEM_EMPTY);
+            return;
+        }
+        
+        int encoding = ITEM_PAPER;
+        byte[] bytes = ServerUtils.serializeItemAsBytes(item);
+        if (bytes == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            try (BukkitObjectOutputStream objects = new BukkitObjectOutputStream(buffer)) {
+                objects.writeObject(item);
+            }
+            bytes = buffer.toByteArray();
+            encoding = ITEM_BUKKIT;
+        }
+        
+        byte[] hash = blobs != null ? blobs.store(encoding, bytes) : null;
+        if (hash != null) {
+            out.writeByte(ITEM_BLOB);
+            out.write(hash);
+            return;
+        }
+        out.writeByte(encoding);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static ItemStack readItem(DataInputStream in, ItemBlobStore blobs) throws IOException {
+        int encoding = in.readUnsignedByte();
+        if (encoding == ITEM_EMPTY) {
+            return null;
+        }
+        
+        byte[] hash;
+        byte[] bytes = null;
+        if (encoding == ITEM_BLOB) {
+            hash = new byte[ItemBlobStore.HASH_LENGTH];
+            in.readFully(hash);
+        } else {
+            bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            hash = ItemBlobStore.hash(encoding, bytes);
+        }
+        
+        // Identical items decode to one shared instance, which also saves decoding them again
+        ItemStack shared = blobs.getInterned(hash);
+        if (shared != null) {
+            return shared;
+        }
+        if (bytes == null) {
+            byte[] payload = blobs.load(hash);
+            if (payload == null || payload.length == 0) {
+                LoggerUtils.warn("Skipping item missing from the item store: " + ItemBlobStore.toHex(hash));
+                return null;
+            }
+            encoding = payload[0] & 0xFF;
+            bytes = Arrays.copyOfRange(payload, 1, payload.length);
+        }
+        
+        ItemStack item = decodeItem(encoding, bytes);
+        return item != null ? blobs.intern(hash, item) : null;
+    }
+    
+    private static ItemStack decodeItem(int encoding, byte[] bytes) {
+        try {
+            if (encoding == ITEM_PAPER) {
+                ItemStack item = ServerUtils.deserializeItemBytes(bytes);
+                if (item == null && !warnedPaperItems) {
+                    warnedPaperItems = true;
+                    LoggerUtils.warn("Inventory data contains items saved on Paper, they can't be read on this server");
+                }
+                return item;
+            }
+            if (encoding == ITEM_BUKKIT) {
+                try (BukkitObjectInputStream objects = new BukkitObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (ItemStack) objects.readObject();
+                }
+            }
+        } catch (Exception e) {
+            // One unreadable item, e.g. from a removed mod or newer version, must not lose the rest
+            LoggerUtils.warn("Skipping unreadable item in inventory data: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    private static void skipItem(DataInputStream in, Set<String> hashes) throws IOException {
+        int encoding = in.readUnsignedByte();
+        if (encoding == ITEM_BLOB) {
+            byte[] hash = new byte[ItemBlobStore.HASH_LENGTH];
+            in.readFully(hash);
+            hashes.add(ItemBlobStore.toHex(hash));
+        } else if (encoding != ITEM_EMPTY) {
+            in.skipBytes(in.readInt());
+        }
+    }
+    
+    private static PotionEffect[] readPotionEffects(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<PotionEffect> effects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            int duration = in.readInt();
+            int amplifier = in.readInt();
+            boolean ambient = in.readBoolean();
+            boolean particles = in.readBoolean();
+            boolean icon = in.readBoolean();
+            
+            NamespacedKey namespacedKey = NamespacedKey.fromString(key);
+            PotionEffectType type = namespacedKey != null ? PotionEffectType.getByKey(namespacedKey) : null;
+            if (type != null) {
+                effects.add(new PotionEffect(type, duration, amplifier, ambient, particles, icon));
+            }
+        }
+        return effects.toArray(new PotionEffect[0]);
+    }
+    
+    private interface SectionWriter {
+        void write(DataOutputStream section) throws IOException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package org.hydr4.lilworlds.managers;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a snapshot is written as a full record or as a delta
+ * The last full snapshot written for each player and group is remembered, and later saves
+ * record only the slots that changed since then. A full snapshot is written again after a
+ * number of deltas, once too many slots changed, or when the last one is no longer known,
+ * e.g. after a restart. Writes of one key never run concurrently, see PlayerDataWriter.
+ */
+class PlayerDataDeltas {
+    
+    private final Map<InventoryKey, Base> bases = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder fullRecords = new LongAdder();
+    private final LongAdder deltaRecords = new LongAdder();
+    
+    private volatile boolean enabled;
+    private volatile int fullSnapshotEvery;
+    private volatile double maxChangedFraction;
+    private int maxTracked;
+    
+    /**
+     * An encoded record and what it means for the key once written
+     */
+    static class Record {
+        final InventoryKey key;        // Player and group of the snapshot
+        final InventoryKey storageKey; // The key itself for full records, its delta key otherwise
+        final byte[] bytes;
+        final Base base;               // The new base for full records, null for deltas
+        
+        Record(InventoryKey key, InventoryKey storageKey, byte[] bytes, Base base) {
+            this.key = key;
+            this.storageKey = storageKey;
+            this.bytes = bytes;
+            this.base = base;
+        }
+    }
+    
+    private static class Base {
+        final long snapshotId;
+        final PlayerData data;
+        int deltas;
+        
+        Base(long snapshotId, PlayerData data) {
+            this.snapshotId = snapshotId;
+            this.data = data;
+        }
+    }
+    
+    /**
+     * @param enabled Whether deltas are written at all
+     * @param fullSnapshotEvery Most deltas written in a row before a full snapshot
+     * @param maxChangedFraction Fraction of slots above which a full snapshot is written instead
+     * @param maxTracked Most players and groups whose last full snapshot is remembered
+     */
+    synchronized void configure(boolean enabled, int fullSnapshotEvery, double maxChangedFraction, int maxTracked) {
+        this.enabled = enabled;
+        this.fullSnapshotEvery = Math.max(1, fullSnapshotEvery);
+        this.maxChangedFraction = maxChangedFraction;
+        this.maxTracked = Math.max(0, maxTracked);
+        if (!enabled) {
+            bases.clear();
+        }
+        trim();
+    }
+    
+    /**
+     * Encode a snapshot, pass the record to written once it is stored
+     * 
+     * @param blobs Collects items stored apart, null to write every item inline
+     */
+    Record encode(InventoryKey key, PlayerData data, boolean compress, ItemBlobStore.Batch blobs) throws IOException {
+        Base base = enabled ? getBase(key) : null;
+        if (base != null && base.deltas < fullSnapshotEvery) {
+            int changed = PlayerDataCodec.countChangedSlots(data, base.data);
+            if (changed >= 0 && changed <= PlayerDataCodec.countSlots(data) * maxChangedFraction) {
+                byte[] bytes = PlayerDataCodec.encodeDelta(data, base.data, base.snapshotId, compress, blobs);
+                return new Record(key, key.deltaKey(), bytes, null);
+            }
+        }
+        
+        // Full records always get an id, so deltas written after enabling this can refer to them
+        long snapshotId;
+        do {
+            snapshotId = ThreadLocalRandom.current().nextLong();
+        } while (snapshotId == 0);
+        byte[] bytes = PlayerDataCodec.encode(data, snapshotId, compress, blobs);
+        return new Record(key, key, bytes, new Base(snapshotId, data));
+    }
+    
+    /**
+     * Remember a record that reached the storage
+     */
+    synchronized void written(Record record) {
+        if (record.base != null) {
+            fullRecords.increment();
+            if (enabled) {
+                bases.put(record.key, record.base);
+                trim();
+            }
+        } else {
+            deltaRecords.increment();
+            Base base = bases.get(record.key);
+            if (base != null) {
+                base.deltas++;
+            }
+        }
+    }
+    
+    /**
+     * Forget the base of a key whose write failed, its next record will be a full snapshot
+     */
+    synchronized void failed(Record record) {
+        bases.remove(record.key);
+    }
+    
+    String getStats() {
+        if (!enabled) {
+            return "disabled";
+        }
+        long full = fullRecords.sum();
+        long delta = deltaRecords.sum();
+        synchronized (this) {
+            return full + " full, " + delta + " delta records written, " + bases.size() + " snapshots tracked";
+        }
+    }
+    
+    private synchronized Base getBase(InventoryKey key) {
+        return bases.get(key);
+    }
+    
+    private void trim() {
+        Iterator<Base> iterator = bases.values().iterator();
+        while (bases.size() > maxTracked && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package org.hydr4.lilworlds.managers;
+
+import org.hydr4.lilworlds.utils.LoggerUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ordered write-behind queue for player data
+ * Writes for the same player and group never run concurrently, and only the newest snapshot
+ * is written: a save submitted while an older one is waiting replaces it. Until a write has
+ * reached the disk, loads are served from the queued data instead of the file. Snapshots
+ * waiting at the same time are handed to the sink together, up to the batch size. A failed
+ * write is retried with a growing delay, its snapshot stays queued until it reached the disk.
+ */
+class PlayerDataWriter {
+    
+    private static final long MIN_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60000;
+    
+    private final Sink sink;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+    private final Map<InventoryKey, Slot> slots = new ConcurrentHashMap<>();
+    private final Queue<Slot> ready = new ConcurrentLinkedQueue<>();
+    private volatile boolean abandoned;
+    
+    /**
+     * Where snapshots end up, called on an I/O thread
+     */
+    interface Sink {
+        void write(Map<InventoryKey, PlayerData> batch) throws IOException;
+    }
+    
+    PlayerDataWriter(Sink sink, int threads, int maxBatchSize) {
+        this.sink = sink;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "LilWorlds-InventoryWriter-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Queue a snapshot for writing, replacing any snapshot of the same player and group that is still waiting
+     */
+    void submit(UUID playerId, String groupName, PlayerData data) {
+        InventoryKey key = new InventoryKey(playerId, groupName);
+        while (true) {
+            Slot slot = slots.computeIfAbsent(key, Slot::new);
+            synchronized (slot) {
+                if (slot.retired) {
+                    continue; // Drained and removed concurrently, use a fresh slot
+                }
+                
+                slot.pending = data;
+                if (!slot.scheduled) {
+                    slot.scheduled = true;
+                    schedule(slot);
+                }
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Get the newest data that is queued or being written
+     * 
+     * @return The data, or null if the file is up to date
+     */
+    PlayerData getUnwritten(UUID playerId, String groupName) {
+        Slot slot = slots.get(new InventoryKey(playerId, groupName));
+        if (slot == null) {
+            return null;
+        }
+        synchronized (slot) {
+            return slot.pending != null ? slot.pending : slot.writing;
+        }
+    }
+    
+    /**
+     * Get the number of player files waiting to be written
+     */
+    int getQueueSize() {
+        return slots.size();
+    }
+    
+    /**
+     * Finish every queued write and stop the I/O threads
+     */
+    void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                abandoned = true;
+                LoggerUtils.warn("Timed out waiting for " + slots.size() + " pending inventory writes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Queue a slot for the next batch, a slot is in the ready queue, being written or waiting for a retry, only one of them
+     */
+    private void schedule(Slot slot) {
+        ready.add(slot);
+        executor.execute(this::drain);
+    }
+    
+    private void drain() {
+        while (true) {
+            List<Slot> taken = new ArrayList<>();
+            Map<InventoryKey, PlayerData> batch = new HashMap<>();
+            Slot slot;
+            while (batch.size() < maxBatchSize && (slot = ready.poll()) != null) {
+                synchronized (slot) {
+                    slot.writing = slot.pending;
+                    slot.pending = null;
+                    batch.put(slot.key, slot.writing);
+                }
+                taken.add(slot);
+            }
+            if (batch.isEmpty()) {
+                return; // Nothing left, or taken by the batch of another task
+            }
+            
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                LoggerUtils.error("Error saving player data for " + batch.size() + " players, retrying: " + batch.keySet(), e);
+                retry(taken);
+                continue;
+            }
+            
+            for (Slot written : taken) {
+                synchronized (written) {
+                    written.writing = null;
+                    written.failures = 0;
+                    if (written.pending != null) {
+                        ready.add(written); // Saved again meanwhile, stays scheduled and this loop picks it up
+                    } else {
+                        written.scheduled = false;
+                        written.retired = true;
+                        slots.remove(written.key, written);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Queue the slots of a failed batch again after a delay, their snapshots are still newer than the disk
+     */
+    private void retry(List<Slot> failed) {
+        int failures = 0;
+        for (Slot slot : failed) {
+            synchronized (slot) {
+                if (slot.pending == null) {
+                    slot.pending = slot.writing;
+                }
+                slot.writing = null;
+                failures = Math.max(failures, ++slot.failures);
+            }
+        }
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS, MIN_RETRY_DELAY_MILLIS << Math.min(failures - 1, 16));
+        
+        try {
+            executor.schedule(() -> {
+                ready.addAll(failed);
+                drain();
+            }, delay, TimeUnit.MILLISECONDS);
+            return;
+        } catch (RejectedExecutionException e) {
+            // Closing, no task can be scheduled anymore: retry on this thread until close gives up
+        }
+        
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandoned = true;
+        }
+        if (abandoned) {
+            LoggerUtils.warn("Giving up on saving player data for " + failed.size() + " players");
+            return;
+        }
+        ready.addAll(failed);
+    }
+    
+    private static class Slot {
+        final InventoryKey key;
+        PlayerData pending;  // Newest snapshot not yet picked up
+        PlayerData writing;  // Snapshot the I/O thread is writing
+        boolean scheduled;   // In the ready queue or being written
+        boolean retired;     // Removed from the map, must not be reused
+        int failures;        // Failed writes in a row
+        
+        Slot(InventoryKey key) {
+            this.key = key;
+        }
+    }
+}
\ No newline at end of file
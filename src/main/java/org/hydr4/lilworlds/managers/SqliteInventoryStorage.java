@@ -0,0 +1,201 @@
+package org.hydr4.lilworlds.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores every record in one SQLite database file
+ * Uses the SQLite JDBC driver bundled with the server. A batch is written in one transaction,
+ * so it costs a single sync however many players it holds.
+ */
+class SqliteInventoryStorage implements InventoryStorage {
+    
+    private final File databaseFile;
+    private final Connection connection;
+    
+    SqliteInventoryStorage(File databaseFile) throws IOException {
+        this.databaseFile = databaseFile;
+        try {
+            Class.forName("org.sqlite.JDBC");
+            this.connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("CREATE TABLE IF NOT EXISTS player_data (" +
+                    "player_id TEXT NOT NULL, group_name TEXT NOT NULL, data BLOB NOT NULL, " +
+                    "PRIMARY KEY (player_id, group_name))");
+                statement.execute("CREATE TABLE IF NOT EXISTS last_group (" +
+                    "player_id TEXT PRIMARY KEY, group_name TEXT NOT NULL)");
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("SQLite driver not available on this server", e);
+        } catch (SQLException e) {
+            throw new IOException("Could not open " + databaseFile.getName(), e);
+        }
+    }
+    
+    @Override
+    public synchronized byte[] read(InventoryKey key) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT data FROM player_data WHERE player_id = ? AND group_name = ?")) {
+            statement.setString(1, key.playerId.toString());
+            statement.setString(2, key.groupName);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getBytes(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+    
+    @Override
+    public synchronized Map<InventoryKey, byte[]> readAll(Collection<InventoryKey> keys) throws IOException {
+        // One query per player, the primary key keeps each player's groups together
+        Set<UUID> players = new HashSet<>();
+        for (InventoryKey key : keys) {
+            players.add(key.playerId);
+        }
+        
+        Map<InventoryKey, byte[]> records = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT group_name, data FROM player_data WHERE player_id = ?")) {
+            for (UUID playerId : players) {
+                statement.setString(1, playerId.toString());
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        InventoryKey key = new InventoryKey(playerId, result.getString(1));
+                        if (keys.contains(key)) {
+                            records.put(key, result.getBytes(2));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not read " + keys.size() + " records", e);
+        }
+        return records;
+    }
+    
+    @Override
+    public synchronized void writeAll(Map<InventoryKey, byte[]> records) throws IOException {
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO player_data (player_id, group_name, data) VALUES (?, ?, ?)")) {
+                for (Map.Entry<InventoryKey, byte[]> entry : records.entrySet()) {
+                    statement.setString(1, entry.getKey().playerId.toString());
+                    statement.setString(2, entry.getKey().groupName);
+                    statement.setBytes(3, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not write " + records.size() + " records", e);
+        }
+    }
+    
+    @Override
+    public synchronized void deleteAll(Collection<InventoryKey> keys) throws IOException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM player_data WHERE player_id = ? AND group_name = ?")) {
+                for (InventoryKey key : keys) {
+                    statement.setString(1, key.playerId.toString());
+                    statement.setString(2, key.groupName);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not delete " + keys.size() + " records", e);
+        }
+    }
+    
+    @Override
+    public synchronized Collection<InventoryKey> keys() throws IOException {
+        List<InventoryKey> keys = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT player_id, group_name FROM player_data")) {
+            while (result.next()) {
+                try {
+                    keys.add(new InventoryKey(UUID.fromString(result.getString(1)), result.getString(2)));
+                } catch (IllegalArgumentException e) {
+                    // Not written by this plugin, leave it alone
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not list the stored records", e);
+        }
+        return keys;
+    }
+    
+    @Override
+    public synchronized String readLastGroup(UUID playerId) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT group_name FROM last_group WHERE player_id = ?")) {
+            statement.setString(1, playerId.toString());
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not read the last group of " + playerId, e);
+        }
+    }
+    
+    @Override
+    public synchronized void writeLastGroup(UUID playerId, String groupName) throws IOException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT OR REPLACE INTO last_group (player_id, group_name) VALUES (?, ?)")) {
+            statement.setString(1, playerId.toString());
+            statement.setString(2, groupName);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Could not write the last group of " + playerId, e);
+        }
+    }
+    
+    @Override
+    public String getDescription() {
+        return "SQLite database " + databaseFile.getName();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Could not close " + databaseFile.getName(), e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,477 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.portals.Portal.DetectionMode;
+import org.hydr4.lilworlds.portals.Portal.PortalType;
+import org.hydr4.lilworlds.utils.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores portals in portals.dat, a versioned binary file with one segment per world
+ * A world's segment is only decoded once that world loads, and its portals are encoded back
+ * into a segment when it unloads. Segments of unloaded worlds are written back unchanged.
+ * 
+ * File layout: magic, version, segment count, then for each segment the world name, the
+ * portal count, the portal names and the length-prefixed encoded portals. Files of an older
+ * version are upgraded segment by segment when read.
+ */
+public class BinaryPortalStorage implements PortalStorage {
+    
+    private static final int MAGIC = 0x4C575054; // "LWPT"
+    private static final int VERSION = 3; // 2: detection mode, 3: entity transit
+    
+    private final LilWorlds plugin;
+    private final File dataFile;
+    private final File yamlFile;
+    
+    // Only touched on the main thread, copied into each pending write
+    private final Map<String, Segment> unloadedSegments = new HashMap<>();
+    private final Map<String, String> reservedNames = new HashMap<>();
+    
+    public BinaryPortalStorage(LilWorlds plugin, File dataFile, File yamlFile) {
+        this.plugin = plugin;
+        this.dataFile = dataFile;
+        this.yamlFile = yamlFile;
+    }
+    
+    @Override
+    public List<Portal> load() {
+        unloadedSegments.clear();
+        reservedNames.clear();
+        
+        if (!dataFile.exists() && yamlFile.exists()) {
+            migrateFromYaml();
+        }
+        
+        if (dataFile.exists()) {
+            try {
+                for (Segment segment : readFile(dataFile)) {
+                    addUnloaded(segment);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not read " + dataFile.getName() + ": " + e.getMessage());
+                moveAside(dataFile, ".corrupt");
+            }
+        }
+        
+        List<Portal> loaded = new ArrayList<>();
+        for (World world : Bukkit.getWorlds()) {
+            loaded.addAll(loadWorld(world));
+        }
+        return loaded;
+    }
+    
+    @Override
+    public List<Portal> loadWorld(World world) {
+        Segment segment = unloadedSegments.remove(world.getName());
+        if (segment == null) {
+            return Collections.emptyList();
+        }
+        for (String name : segment.names) {
+            reservedNames.remove(name.toLowerCase());
+        }
+        
+        List<Portal> portals = new ArrayList<>(segment.names.size());
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(segment.data))) {
+            for (int i = 0; i < segment.names.size(); i++) {
+                portals.add(StoredPortal.readFrom(in, VERSION).toPortal(world));
+            }
+        } catch (IOException e) {
+            // Keep the raw segment so a later save does not drop these portals
+            plugin.getLogger().severe("Could not decode portals of world " + world.getName() + ": " + e.getMessage());
+            addUnloaded(segment);
+            return Collections.emptyList();
+        }
+        return portals;
+    }
+    
+    @Override
+    public boolean unloadWorld(World world, Collection<Portal> portals) {
+        List<StoredPortal> stored = new ArrayList<>(portals.size());
+        for (Portal portal : portals) {
+            stored.add(StoredPortal.of(portal));
+        }
+        
+        try {
+            addUnloaded(Segment.encode(world.getName(), stored));
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not encode portals of world " + world.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public boolean isNameReserved(String name) {
+        return reservedNames.containsKey(name.toLowerCase());
+    }
+    
+    @Override
+    public PendingWrite prepareWrite(List<Portal> portals) {
+        // Read the portals here on the main thread, the writer thread must not touch their worlds
+        Map<String, List<StoredPortal>> byWorld = new LinkedHashMap<>();
+        for (Portal portal : portals) {
+            StoredPortal stored = StoredPortal.of(portal);
+            byWorld.computeIfAbsent(stored.world, world -> new ArrayList<>()).add(stored);
+        }
+        Map<String, Segment> retained = new HashMap<>(unloadedSegments);
+        return () -> write(byWorld, retained);
+    }
+    
+    private void write(Map<String, List<StoredPortal>> byWorld, Map<String, Segment> retained) throws IOException {
+        List<Segment> segments = new ArrayList<>(byWorld.size() + retained.size());
+        for (Map.Entry<String, List<StoredPortal>> entry : byWorld.entrySet()) {
+            segments.add(Segment.encode(entry.getKey(), entry.getValue()));
+        }
+        for (Segment segment : retained.values()) {
+            if (!byWorld.containsKey(segment.world)) {
+                segments.add(segment);
+            }
+        }
+        
+        writeFile(dataFile, segments);
+    }
+    
+    private void addUnloaded(Segment segment) {
+        unloadedSegments.put(segment.world, segment);
+        for (String name : segment.names) {
+            reservedNames.put(name.toLowerCase(), segment.world);
+        }
+    }
+    
+    /**
+     * Convert portals.yml once, reading coordinates directly so unloaded worlds are kept too
+     */
+    private void migrateFromYaml() {
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(yamlFile);
+        ConfigurationSection portalsSection = yaml.getConfigurationSection("portals");
+        
+        Map<String, List<StoredPortal>> byWorld = new LinkedHashMap<>();
+        int migrated = 0;
+        if (portalsSection != null) {
+            for (String key : portalsSection.getKeys(false)) {
+                ConfigurationSection section = portalsSection.getConfigurationSection(key);
+                StoredPortal stored = section != null ? StoredPortal.fromYaml(key, section) : null;
+                if (stored == null) {
+                    plugin.getLogger().warning("Skipping invalid portal during migration: " + key);
+                    continue;
+                }
+                byWorld.computeIfAbsent(stored.world, world -> new ArrayList<>()).add(stored);
+                migrated++;
+            }
+        }
+        
+        try {
+            List<Segment> segments = new ArrayList<>(byWorld.size());
+            for (Map.Entry<String, List<StoredPortal>> entry : byWorld.entrySet()) {
+                segments.add(Segment.encode(entry.getKey(), entry.getValue()));
+            }
+            writeFile(dataFile, segments);
+            moveAside(yamlFile, ".migrated");
+            plugin.getLogger().info("Migrated " + migrated + " portals from " + yamlFile.getName() + " to " + dataFile.getName());
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not migrate " + yamlFile.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    private void moveAside(File file, String suffix) {
+        File target = new File(file.getParentFile(), file.getName() + suffix);
+        try {
+            Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            plugin.getLogger().warning("Moved " + file.getName() + " to " + target.getName());
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not move " + file.getName() + " aside: " + e.getMessage());
+        }
+    }
+    
+    private static List<Segment> readFile(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        List<Segment> segments = new ArrayList<>();
+        if (bytes.length == 0) {
+            return segments;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a portal data file");
+            }
+            int version = in.readUnsignedShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported portal data version " + version);
+            }
+            
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                String world = in.readUTF();
+                int portalCount = in.readInt();
+                List<String> names = new ArrayList<>(portalCount);
+                for (int j = 0; j < portalCount; j++) {
+                    names.add(in.readUTF());
+                }
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                
+                Segment segment = new Segment(world, names, data);
+                segments.add(version < VERSION ? segment.upgrade(version) : segment);
+            }
+        }
+        return segments;
+    }
+    
+    private static void writeFile(File file, List<Segment> segments) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeUTF(segment.world);
+                out.writeInt(segment.names.size());
+                for (String name : segment.names) {
+                    out.writeUTF(name);
+                }
+                out.writeInt(segment.data.length);
+                out.write(segment.data);
+            }
+        }
+        FileUtils.writeAtomically(file, bytes.toByteArray());
+    }
+    
+    /**
+     * The encoded portals of one world
+     */
+    private static class Segment {
+        final String world;
+        final List<String> names;
+        final byte[] data;
+        
+        Segment(String world, List<String> names, byte[] data) {
+            this.world = world;
+            this.names = names;
+            this.data = data;
+        }
+        
+        static Segment encode(String world, List<StoredPortal> portals) throws IOException {
+            List<String> names = new ArrayList<>(portals.size());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(portals.size() * 128);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                for (StoredPortal portal : portals) {
+                    names.add(portal.name);
+                    portal.writeTo(out);
+                }
+            }
+            return new Segment(world, names, bytes.toByteArray());
+        }
+        
+        /**
+         * Re-encode a segment written by an older version
+         */
+        Segment upgrade(int version) throws IOException {
+            List<StoredPortal> portals = new ArrayList<>(names.size());
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+                for (int i = 0; i < names.size(); i++) {
+                    portals.add(StoredPortal.readFrom(in, version));
+                }
+            }
+            return encode(world, portals);
+        }
+    }
+    
+    /**
+     * A portal as plain values, independent of whether its worlds are loaded
+     */
+    private static class StoredPortal {
+        String name;
+        String world;
+        double x1, y1, z1;
+        double x2, y2, z2;
+        String destinationWorld;
+        double destinationX, destinationY, destinationZ;
+        float destinationYaw, destinationPitch;
+        String frameMaterial;
+        String type;
+        boolean enabled;
+        int cooldownTicks;
+        String detectionMode;
+        boolean entityTransit;
+        double entityRadius = EntityTransit.DEFAULT_RADIUS;
+        List<String> entityTypes = Collections.emptyList();
+        
+        static StoredPortal of(Portal portal) {
+            StoredPortal stored = new StoredPortal();
+            Location location1 = portal.getLocation1();
+            Location location2 = portal.getLocation2();
+            Location destination = portal.getDestinationLocation();
+            
+            stored.name = portal.getName();
+            stored.world = location1.getWorld().getName();
+            stored.x1 = location1.getX();
+            stored.y1 = location1.getY();
+            stored.z1 = location1.getZ();
+            stored.x2 = location2.getX();
+            stored.y2 = location2.getY();
+            stored.z2 = location2.getZ();
+            stored.destinationWorld = portal.getDestinationWorld();
+            stored.destinationX = destination.getX();
+            stored.destinationY = destination.getY();
+            stored.destinationZ = destination.getZ();
+            stored.destinationYaw = destination.getYaw();
+            stored.destinationPitch = destination.getPitch();
+            stored.frameMaterial = portal.getFrameMaterial().name();
+            stored.type = portal.getType().name();
+            stored.enabled = portal.isEnabled();
+            stored.cooldownTicks = portal.getCooldownTicks();
+            stored.detectionMode = portal.getDetectionMode().name();
+            stored.entityTransit = portal.getEntityTransit().isEnabled();
+            stored.entityRadius = portal.getEntityTransit().getRadius();
+            stored.entityTypes = portal.getEntityTransit().getEntityTypeNames();
+            return stored;
+        }
+        
+        static StoredPortal fromYaml(String key, ConfigurationSection section) {
+            ConfigurationSection location1 = section.getConfigurationSection("location1");
+            ConfigurationSection location2 = section.getConfigurationSection("location2");
+            ConfigurationSection destination = section.getConfigurationSection("destinationLocation");
+            if (location1 == null || location2 == null || destination == null || location1.getString("world") == null) {
+                return null;
+            }
+            
+            StoredPortal stored = new StoredPortal();
+            stored.name = section.getString("name", key);
+            stored.world = location1.getString("world");
+            stored.x1 = location1.getDouble("x");
+            stored.y1 = location1.getDouble("y");
+            stored.z1 = location1.getDouble("z");
+            stored.x2 = location2.getDouble("x");
+            stored.y2 = location2.getDouble("y");
+            stored.z2 = location2.getDouble("z");
+            stored.destinationWorld = section.getString("destinationWorld", destination.getString("world"));
+            stored.destinationX = destination.getDouble("x");
+            stored.destinationY = destination.getDouble("y");
+            stored.destinationZ = destination.getDouble("z");
+            stored.destinationYaw = (float) destination.getDouble("yaw");
+            stored.destinationPitch = (float) destination.getDouble("pitch");
+            stored.frameMaterial = section.getString("frameMaterial", Material.OBSIDIAN.name());
+            stored.type = section.getString("type", PortalType.CUSTOM.name());
+            stored.enabled = section.getBoolean("enabled", true);
+            stored.cooldownTicks = section.getInt("cooldownTicks", -1);
+            stored.detectionMode = section.getString("detectionMode", DetectionMode.EVENT.name());
+            ConfigurationSection transit = section.getConfigurationSection("entityTransit");
+            if (transit != null) {
+                stored.entityTransit = transit.getBoolean("enabled", false);
+                stored.entityRadius = transit.getDouble("radius", EntityTransit.DEFAULT_RADIUS);
+                stored.entityTypes = transit.getStringList("types");
+            }
+            return stored.destinationWorld != null ? stored : null;
+        }
+        
+        static StoredPortal readFrom(DataInputStream in, int version) throws IOException {
+            StoredPortal stored = new StoredPortal();
+            stored.name = in.readUTF();
+            stored.x1 = in.readDouble();
+            stored.y1 = in.readDouble();
+            stored.z1 = in.readDouble();
+            stored.x2 = in.readDouble();
+            stored.y2 = in.readDouble();
+            stored.z2 = in.readDouble();
+            stored.destinationWorld = in.readUTF();
+            stored.destinationX = in.readDouble();
+            stored.destinationY = in.readDouble();
+            stored.destinationZ = in.readDouble();
+            stored.destinationYaw = in.readFloat();
+            stored.destinationPitch = in.readFloat();
+            stored.frameMaterial = in.readUTF();
+            stored.type = in.readUTF();
+            stored.enabled = in.readBoolean();
+            stored.cooldownTicks = in.readInt();
+            stored.detectionMode = version >= 2 ? in.readUTF() : DetectionMode.EVENT.name();
+            if (version >= 3) {
+                stored.entityTransit = in.readBoolean();
+                stored.entityRadius = in.readDouble();
+                int typeCount = in.readUnsignedShort();
+                stored.entityTypes = new ArrayList<>(typeCount);
+                for (int i = 0; i < typeCount; i++) {
+                    stored.entityTypes.add(in.readUTF());
+                }
+            }
+            return stored;
+        }
+        
+        void writeTo(DataOutputStream out) throws IOException {
+            // The world is implied by the segment
+            out.writeUTF(name);
+            out.writeDouble(x1);
+            out.writeDouble(y1);
+            out.writeDouble(z1);
+            out.writeDouble(x2);
+            out.writeDouble(y2);
+            out.writeDouble(z2);
+            out.writeUTF(destinationWorld);
+            out.writeDouble(destinationX);
+            out.writeDouble(destinationY);
+            out.writeDouble(destinationZ);
+            out.writeFloat(destinationYaw);
+            out.writeFloat(destinationPitch);
+            out.writeUTF(frameMaterial);
+            out.writeUTF(type);
+            out.writeBoolean(enabled);
+            out.writeInt(cooldownTicks);
+            out.writeUTF(detectionMode);
+            out.writeBoolean(entityTransit);
+            out.writeDouble(entityRadius);
+            out.writeShort(entityTypes.size());
+            for (String entityType : entityTypes) {
+                out.writeUTF(entityType);
+            }
+        }
+        
+        Portal toPortal(World world) {
+            PortalType portalType;
+            try {
+                portalType = PortalType.valueOf(type);
+            } catch (IllegalArgumentException e) {
+                portalType = PortalType.CUSTOM;
+            }
+            
+            DetectionMode mode;
+            try {
+                mode = DetectionMode.valueOf(detectionMode);
+            } catch (IllegalArgumentException e) {
+                mode = DetectionMode.EVENT;
+            }
+            
+            return new Portal(name,
+                new Location(world, x1, y1, z1),
+                new Location(world, x2, y2, z2),
+                destinationWorld,
+                new Location(Bukkit.getWorld(destinationWorld), destinationX, destinationY, destinationZ, destinationYaw, destinationPitch),
+                Material.matchMaterial(frameMaterial),
+                portalType,
+                enabled,
+                cooldownTicks,
+                mode,
+                new EntityTransit(entityTransit, entityRadius, EntityTransit.parseEntityTypes(entityTypes)));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.utils.ServerUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads destination chunks ahead of a portal teleport
+ * Paper servers load the chunk off the main thread; elsewhere a plugin chunk ticket is added
+ * for a few chunks per tick and the server loads them over the following ticks. Each tick the
+ * ticketed chunks are checked, and the ticket is released one tick after the load completed.
+ * Tickets go through {@link ChunkTickets}, so releasing one never drops a hot destination's.
+ * Futures always complete on the main thread.
+ */
+public class ChunkPreloader {
+    
+    private final LilWorlds plugin;
+    private final ChunkTickets tickets;
+    // A chunk the server has not loaded after this many ticks is loaded directly
+    private static final int MAX_WAIT_TICKS = 200;
+    
+    private final Queue<PendingLoad> queue = new ArrayDeque<>();
+    private final List<PendingLoad> ticketed = new ArrayList<>();
+    private final Map<UUID, Map<Long, PendingLoad>> pending = new HashMap<>();
+    private BukkitTask task;
+    private int chunksPerTick;
+    
+    public ChunkPreloader(LilWorlds plugin, ChunkTickets tickets) {
+        this.plugin = plugin;
+        this.tickets = tickets;
+        loadConfiguration();
+    }
+    
+    /**
+     * Load the fallback loading rate from config
+     */
+    public void loadConfiguration() {
+        this.chunksPerTick = Math.max(1, plugin.getConfig().getInt("portals.preload.chunks-per-tick", 1));
+    }
+    
+    /**
+     * Make sure a chunk is loaded, without blocking the main thread where the server allows it
+     * 
+     * @return A future completed on the main thread with the loaded chunk
+     */
+    public CompletableFuture<Chunk> load(World world, int chunkX, int chunkZ) {
+        if (world.isChunkLoaded(chunkX, chunkZ)) {
+            return CompletableFuture.completedFuture(world.getChunkAt(chunkX, chunkZ));
+        }
+        
+        CompletableFuture<Chunk> paperFuture = ServerUtils.getChunkAtAsync(world, chunkX, chunkZ);
+        if (paperFuture != null) {
+            CompletableFuture<Chunk> result = new CompletableFuture<>();
+            paperFuture.whenComplete((chunk, error) -> {
+                if (Bukkit.isPrimaryThread()) {
+                    complete(result, chunk, error);
+                } else {
+                    Bukkit.getScheduler().runTask(plugin, () -> complete(result, chunk, error));
+                }
+            });
+            return result;
+        }
+        
+        return enqueue(world, chunkX, chunkZ);
+    }
+    
+    /**
+     * Fail every queued load and stop the loading task
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        
+        PendingLoad load;
+        while ((load = queue.poll()) != null) {
+            load.future.completeExceptionally(new IllegalStateException("Chunk preloader shut down"));
+        }
+        for (PendingLoad ticketedLoad : ticketed) {
+            tickets.remove(ticketedLoad.world.getUID(), ticketedLoad.chunkX, ticketedLoad.chunkZ);
+            ticketedLoad.future.completeExceptionally(new IllegalStateException("Chunk preloader shut down"));
+        }
+        ticketed.clear();
+        pending.clear();
+    }
+    
+    private CompletableFuture<Chunk> enqueue(World world, int chunkX, int chunkZ) {
+        // Players heading to the same chunk share one load
+        Map<Long, PendingLoad> worldLoads = pending.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        long key = chunkKey(chunkX, chunkZ);
+        PendingLoad load = worldLoads.get(key);
+        if (load == null) {
+            load = new PendingLoad(world, chunkX, chunkZ);
+            worldLoads.put(key, load);
+            queue.add(load);
+        }
+        
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+        return load.future;
+    }
+    
+    private void tick() {
+        // Complete the loads whose chunk the server has loaded since
+        Iterator<PendingLoad> iterator = ticketed.iterator();
+        while (iterator.hasNext()) {
+            PendingLoad load = iterator.next();
+            if (Bukkit.getWorld(load.world.getUID()) == null) {
+                iterator.remove();
+                finish(load);
+                load.future.completeExceptionally(new IllegalStateException("World " + load.world.getName() + " was unloaded"));
+                continue;
+            }
+            
+            load.waitedTicks++;
+            if (!load.world.isChunkLoaded(load.chunkX, load.chunkZ) && load.waitedTicks < MAX_WAIT_TICKS) {
+                continue;
+            }
+            
+            iterator.remove();
+            finish(load);
+            try {
+                // Already loaded unless the wait timed out, then this is a last resort blocking load
+                load.future.complete(load.world.getChunkAt(load.chunkX, load.chunkZ));
+            } catch (Exception e) {
+                load.future.completeExceptionally(e);
+            }
+            releaseTicketNextTick(load);
+        }
+        
+        // Start new loads, the ticket makes the server load the chunk over the next ticks
+        for (int i = 0; i < chunksPerTick; i++) {
+            PendingLoad load = queue.poll();
+            if (load == null) {
+                break;
+            }
+            
+            if (Bukkit.getWorld(load.world.getUID()) == null) {
+                finish(load);
+                load.future.completeExceptionally(new IllegalStateException("World " + load.world.getName() + " was unloaded"));
+                continue;
+            }
+            
+            try {
+                tickets.add(load.world, load.chunkX, load.chunkZ);
+                ticketed.add(load);
+            } catch (Exception e) {
+                finish(load);
+                load.future.completeExceptionally(e);
+            }
+        }
+        
+        if (queue.isEmpty() && ticketed.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    /**
+     * Stop sharing a load with new requests for the same chunk
+     */
+    private void finish(PendingLoad load) {
+        Map<Long, PendingLoad> worldLoads = pending.get(load.world.getUID());
+        if (worldLoads != null) {
+            worldLoads.remove(chunkKey(load.chunkX, load.chunkZ), load);
+            if (worldLoads.isEmpty()) {
+                pending.remove(load.world.getUID());
+            }
+        }
+    }
+    
+    /**
+     * Keep the chunk loaded until the teleports waiting on it ran, then let the server unload it
+     * unless a hot destination holds it too
+     */
+    private void releaseTicketNextTick(PendingLoad load) {
+        UUID worldId = load.world.getUID();
+        int chunkX = load.chunkX;
+        int chunkZ = load.chunkZ;
+        Bukkit.getScheduler().runTask(plugin, () -> tickets.remove(worldId, chunkX, chunkZ));
+    }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    private static void complete(CompletableFuture<Chunk> future, Chunk chunk, Throwable error) {
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(chunk);
+        }
+    }
+    
+    private static class PendingLoad {
+        final World world;
+        final int chunkX;
+        final int chunkZ;
+        final CompletableFuture<Chunk> future = new CompletableFuture<>();
+        int waitedTicks;
+        
+        PendingLoad(World world, int chunkX, int chunkZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+}
\ No newline at end of file
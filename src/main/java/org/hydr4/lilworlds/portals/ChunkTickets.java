@@ -0,0 +1,76 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.hydr4.lilworlds.LilWorlds;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Plugin chunk tickets shared by the chunk preloader and the hot destination tickets
+ * The server keeps a single ticket per chunk and plugin however often it was added, so holders
+ * are counted here and the ticket is only removed once the last one released it. Main thread only.
+ */
+public class ChunkTickets {
+    
+    private final LilWorlds plugin;
+    private final Map<UUID, Map<Long, Integer>> holders = new HashMap<>();
+    
+    public ChunkTickets(LilWorlds plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Hold a chunk loaded, adding the ticket for its first holder
+     */
+    public void add(World world, int chunkX, int chunkZ) {
+        Map<Long, Integer> worldHolders = holders.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        long key = chunkKey(chunkX, chunkZ);
+        if (!worldHolders.containsKey(key)) {
+            world.addPluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+        worldHolders.merge(key, 1, Integer::sum);
+    }
+    
+    /**
+     * Release a hold on a chunk, removing the ticket once no holder is left
+     */
+    public void remove(UUID worldId, int chunkX, int chunkZ) {
+        Map<Long, Integer> worldHolders = holders.get(worldId);
+        if (worldHolders == null) {
+            return;
+        }
+        
+        long key = chunkKey(chunkX, chunkZ);
+        Integer count = worldHolders.get(key);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            worldHolders.put(key, count - 1);
+            return;
+        }
+        
+        worldHolders.remove(key);
+        if (worldHolders.isEmpty()) {
+            holders.remove(worldId);
+        }
+        World world = Bukkit.getWorld(worldId);
+        if (world != null) {
+            world.removePluginChunkTicket(chunkX, chunkZ, plugin);
+        }
+    }
+    
+    /**
+     * Forget the holders in a world that was unloaded, the server dropped its tickets with it
+     */
+    public void forgetWorld(UUID worldId) {
+        holders.remove(worldId);
+    }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
\ No newline at end of file
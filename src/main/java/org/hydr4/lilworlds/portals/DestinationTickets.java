@@ -0,0 +1,217 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the destination chunks of busy portals loaded with plugin chunk tickets
+ * Usage is tracked per portal as an exponentially decaying rate; tickets are added once it
+ * goes above the hot rate and released when it falls below the lower release rate.
+ */
+public class DestinationTickets {
+    
+    private final LilWorlds plugin;
+    private final PortalManager portalManager;
+    private final ChunkTickets tickets;
+    private final Map<String, Usage> usage = new HashMap<>();
+    private final Map<UUID, Map<Long, Integer>> ticketRefs = new HashMap<>(); // Portals holding each chunk
+    private BukkitTask task;
+    
+    private boolean enabled;
+    private double hotRate;
+    private double releaseRate;
+    private double decayPerNano;
+    private int radiusChunks;
+    private long updateIntervalTicks;
+    
+    public DestinationTickets(LilWorlds plugin, PortalManager portalManager, ChunkTickets tickets) {
+        this.plugin = plugin;
+        this.portalManager = portalManager;
+        this.tickets = tickets;
+        loadConfiguration();
+    }
+    
+    /**
+     * Load the rates and ticket radius from config, applied by the next start
+     */
+    public void loadConfiguration() {
+        this.enabled = plugin.getConfig().getBoolean("portals.hot-destinations.enabled", true);
+        this.hotRate = Math.max(0.1, plugin.getConfig().getDouble("portals.hot-destinations.uses-per-minute", 6.0));
+        this.releaseRate = Math.min(hotRate, plugin.getConfig().getDouble("portals.hot-destinations.release-uses-per-minute", 2.0));
+        double halfLifeSeconds = Math.max(1.0, plugin.getConfig().getDouble("portals.hot-destinations.half-life-seconds", 60.0));
+        this.decayPerNano = Math.log(2) / (halfLifeSeconds * 1_000_000_000L);
+        this.radiusChunks = Math.max(0, Math.min(4, plugin.getConfig().getInt("portals.hot-destinations.radius-chunks", 1)));
+        this.updateIntervalTicks = Math.max(1, plugin.getConfig().getLong("portals.hot-destinations.update-interval-seconds", 5)) * 20;
+    }
+    
+    /**
+     * Start the task that adds and releases tickets
+     */
+    public void start() {
+        stop();
+        if (enabled) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::update, updateIntervalTicks, updateIntervalTicks);
+        } else {
+            usage.clear();
+        }
+    }
+    
+    /**
+     * Stop the task and release every ticket, usage is kept so busy portals get them back on start
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Usage portalUsage : usage.values()) {
+            release(portalUsage);
+        }
+    }
+    
+    /**
+     * Count a teleport through a portal, called on the main thread
+     */
+    public void recordUse(Portal portal) {
+        if (!enabled) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        Usage portalUsage = usage.computeIfAbsent(portal.getName().toLowerCase(), name -> new Usage(now));
+        portalUsage.decay(now, decayPerNano);
+        portalUsage.score += 1;
+    }
+    
+    /**
+     * Forget tickets in a world that was unloaded, the server dropped them with it
+     */
+    public void forgetWorld(UUID worldId) {
+        ticketRefs.remove(worldId);
+        for (Usage portalUsage : usage.values()) {
+            if (worldId.equals(portalUsage.ticketWorld)) {
+                portalUsage.ticketWorld = null;
+                portalUsage.heldChunks.clear();
+            }
+        }
+    }
+    
+    /**
+     * Get the number of chunks currently kept loaded
+     */
+    public int getTicketCount() {
+        int count = 0;
+        for (Map<Long, Integer> worldRefs : ticketRefs.values()) {
+            count += worldRefs.size();
+        }
+        return count;
+    }
+    
+    private void update() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Usage>> iterator = usage.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Usage> entry = iterator.next();
+            Usage portalUsage = entry.getValue();
+            portalUsage.decay(now, decayPerNano);
+            
+            // Score to uses per minute, a steady rate r settles at score r / decay
+            double rate = portalUsage.score * decayPerNano * 60_000_000_000L;
+            Portal portal = portalManager.getPortal(entry.getKey());
+            boolean held = portalUsage.ticketWorld != null;
+            
+            if (portal == null || !portal.isEnabled() || (held && rate < releaseRate)) {
+                release(portalUsage);
+            } else if (held || rate >= hotRate) {
+                acquire(portal, portalUsage);
+            }
+            
+            if (portal == null || (portalUsage.ticketWorld == null && rate < releaseRate / 10)) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    private void acquire(Portal portal, Usage portalUsage) {
+        World world = portal.getResolvedDestinationWorld();
+        if (world == null) {
+            return;
+        }
+        if (portalUsage.ticketWorld != null && !portalUsage.ticketWorld.equals(world.getUID())) {
+            release(portalUsage);
+        }
+        
+        Map<Long, Integer> worldRefs = ticketRefs.computeIfAbsent(world.getUID(), id -> new HashMap<>());
+        for (int chunkX = portal.getDestinationChunkX() - radiusChunks; chunkX <= portal.getDestinationChunkX() + radiusChunks; chunkX++) {
+            for (int chunkZ = portal.getDestinationChunkZ() - radiusChunks; chunkZ <= portal.getDestinationChunkZ() + radiusChunks; chunkZ++) {
+                // Only loaded chunks are ticketed so this never loads chunks on the main thread,
+                // the rest are picked up on a later update once teleports loaded them
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                
+                long key = chunkKey(chunkX, chunkZ);
+                if (!portalUsage.heldChunks.contains(key)) {
+                    tickets.add(world, chunkX, chunkZ);
+                    portalUsage.heldChunks.add(key);
+                    worldRefs.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        portalUsage.ticketWorld = world.getUID();
+    }
+    
+    private void release(Usage portalUsage) {
+        UUID worldId = portalUsage.ticketWorld;
+        if (worldId == null) {
+            return;
+        }
+        
+        Map<Long, Integer> worldRefs = ticketRefs.get(worldId);
+        for (long key : portalUsage.heldChunks) {
+            tickets.remove(worldId, (int) (key >> 32), (int) key);
+            
+            Integer refs = worldRefs != null ? worldRefs.get(key) : null;
+            if (refs != null && refs > 1) {
+                worldRefs.put(key, refs - 1);
+            } else if (worldRefs != null) {
+                worldRefs.remove(key);
+            }
+        }
+        if (worldRefs != null && worldRefs.isEmpty()) {
+            ticketRefs.remove(worldId);
+        }
+        
+        portalUsage.heldChunks.clear();
+        portalUsage.ticketWorld = null;
+    }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    private static class Usage {
+        double score;
+        long lastUpdate;
+        UUID ticketWorld; // World of the held tickets, null if none are held
+        final List<Long> heldChunks = new ArrayList<>();
+        
+        Usage(long now) {
+            this.lastUpdate = now;
+        }
+        
+        void decay(long now, double decayPerNano) {
+            score *= Math.exp(-decayPerNano * (now - lastUpdate));
+            lastUpdate = now;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings for non-player entities passing through a portal
+ */
+public final class EntityTransit {
+    
+    public static final double DEFAULT_RADIUS = 0.0; // Blocks scanned around the portal region
+    public static final double MAX_RADIUS = 8.0;
+    
+    /** Entity transit turned off, the default for every portal */
+    public static final EntityTransit DISABLED = new EntityTransit(false, DEFAULT_RADIUS, Collections.emptySet());
+    
+    private final boolean enabled;
+    private final double radius;
+    private final Set<EntityType> entityTypes; // Empty allows every type
+    
+    public EntityTransit(boolean enabled, double radius, Collection<EntityType> entityTypes) {
+        this.enabled = enabled;
+        this.radius = Math.max(0, Math.min(MAX_RADIUS, radius));
+        this.entityTypes = entityTypes.isEmpty()
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(EnumSet.copyOf(entityTypes));
+    }
+    
+    public boolean isEnabled() { return enabled; }
+    public double getRadius() { return radius; }
+    public Set<EntityType> getEntityTypes() { return entityTypes; }
+    
+    /**
+     * Check if entities of a type may use the portal
+     */
+    public boolean accepts(EntityType type) {
+        return type != EntityType.PLAYER && (entityTypes.isEmpty() || entityTypes.contains(type));
+    }
+    
+    /**
+     * Check if these are the settings of a portal that never configured entity transit
+     */
+    public boolean isDefault() {
+        return !enabled && radius == DEFAULT_RADIUS && entityTypes.isEmpty();
+    }
+    
+    public EntityTransit withEnabled(boolean enabled) {
+        return new EntityTransit(enabled, radius, entityTypes);
+    }
+    
+    public EntityTransit withRadius(double radius) {
+        return new EntityTransit(enabled, radius, entityTypes);
+    }
+    
+    public EntityTransit withEntityTypes(Collection<EntityType> entityTypes) {
+        return new EntityTransit(enabled, radius, entityTypes);
+    }
+    
+    /**
+     * Get the type names, in a stable order for storage
+     */
+    public List<String> getEntityTypeNames() {
+        List<String> names = new ArrayList<>();
+        for (EntityType type : entityTypes) {
+            names.add(type.name());
+        }
+        return names;
+    }
+    
+    /**
+     * Parse type names, unknown names are skipped
+     */
+    public static List<EntityType> parseEntityTypes(Collection<String> names) {
+        List<EntityType> types = new ArrayList<>();
+        for (String name : names) {
+            try {
+                types.add(EntityType.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException ignored) {
+                // Types removed in newer versions
+            }
+        }
+        return types;
+    }
+    
+    public Map<String, Object> serialize() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("enabled", enabled);
+        map.put("radius", radius);
+        map.put("types", getEntityTypeNames());
+        return map;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public static EntityTransit deserialize(Map<String, Object> map) {
+        boolean enabled = (Boolean) map.getOrDefault("enabled", false);
+        double radius = ((Number) map.getOrDefault("radius", DEFAULT_RADIUS)).doubleValue();
+        List<String> types = (List<String>) map.getOrDefault("types", Collections.emptyList());
+        return new EntityTransit(enabled, radius, parseEntityTypes(types));
+    }
+}
\ No newline at end of file
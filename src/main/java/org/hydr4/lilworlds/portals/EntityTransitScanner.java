@@ -0,0 +1,126 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sends non-player entities through portals that allow entity transit
+ * Portal regions are scanned chunk by chunk on a fixed interval instead of listening to
+ * entity movement, and the scan stops for the tick once its time budget is used up.
+ */
+public class EntityTransitScanner {
+    
+    private final LilWorlds plugin;
+    private final PortalManager portalManager;
+    private List<Portal> cycle = Collections.emptyList();
+    private int cursor;
+    private int ticksSinceCycle;
+    private int scanIntervalTicks;
+    private long tickBudgetNanos;
+    private BukkitTask task;
+    
+    public EntityTransitScanner(LilWorlds plugin, PortalManager portalManager) {
+        this.plugin = plugin;
+        this.portalManager = portalManager;
+        loadConfiguration();
+    }
+    
+    /**
+     * Load the scan interval and per-tick time budget from config
+     */
+    public void loadConfiguration() {
+        this.scanIntervalTicks = Math.max(1, plugin.getConfig().getInt("portals.entity-transit.scan-interval-ticks", 10));
+        double budgetMillis = plugin.getConfig().getDouble("portals.entity-transit.tick-budget-ms", 1.0);
+        this.tickBudgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+    }
+    
+    /**
+     * Start the scan task
+     */
+    public void start() {
+        stop();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+    
+    /**
+     * Stop the scan task
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        cycle = Collections.emptyList();
+        cursor = 0;
+    }
+    
+    private void tick() {
+        ticksSinceCycle++;
+        if (cursor >= cycle.size()) {
+            // A pass may take several ticks, the next one starts no sooner than the interval
+            if (ticksSinceCycle < scanIntervalTicks) {
+                return;
+            }
+            cycle = portalManager.getEntityTransitPortals();
+            cursor = 0;
+            ticksSinceCycle = 0;
+        }
+        
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        while (cursor < cycle.size() && System.nanoTime() < deadline) {
+            scan(cycle.get(cursor++));
+        }
+    }
+    
+    private void scan(Portal portal) {
+        EntityTransit transit = portal.getEntityTransit();
+        World world = Bukkit.getWorld(portal.getWorldId());
+        if (world == null || !portal.isEnabled() || !transit.isEnabled()) {
+            return;
+        }
+        
+        double radius = transit.getRadius();
+        double minX = portal.getMinBlockX() - radius;
+        double minY = portal.getMinBlockY() - radius;
+        double minZ = portal.getMinBlockZ() - radius;
+        double maxX = portal.getMaxBlockX() + 1 + radius;
+        double maxY = portal.getMaxBlockY() + 1 + radius;
+        double maxZ = portal.getMaxBlockZ() + 1 + radius;
+        
+        int minChunkX = (int) Math.floor(minX) >> 4;
+        int minChunkZ = (int) Math.floor(minZ) >> 4;
+        int maxChunkX = (int) Math.floor(maxX) >> 4;
+        int maxChunkZ = (int) Math.floor(maxZ) >> 4;
+        
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                // Never load chunks just to look for entities
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    // Only the bottom of a stack is moved, it takes its passengers along
+                    if (entity instanceof Player || entity.getVehicle() != null || !transit.accepts(entity.getType())) {
+                        continue;
+                    }
+                    
+                    Location location = entity.getLocation();
+                    if (location.getX() >= minX && location.getX() < maxX
+                        && location.getY() >= minY && location.getY() < maxY
+                        && location.getZ() >= minZ && location.getZ() < maxZ) {
+                        portalManager.teleportEntityAsync(entity, portal);
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
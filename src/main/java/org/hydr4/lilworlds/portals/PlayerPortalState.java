@@ -0,0 +1,25 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.World;
+
+/**
+ * Last block a player was seen in and whether it was inside a portal region
+ */
+class PlayerPortalState {
+    World world;
+    int blockX;
+    int blockY;
+    int blockZ;
+    boolean insidePortal;
+    
+    boolean isAt(World world, int blockX, int blockY, int blockZ) {
+        return this.world == world && this.blockX == blockX && this.blockY == blockY && this.blockZ == blockZ;
+    }
+    
+    void moveTo(World world, int blockX, int blockY, int blockZ) {
+        this.world = world;
+        this.blockX = blockX;
+        this.blockY = blockY;
+        this.blockZ = blockZ;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.hydr4.lilworlds.portals;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -7,6 +8,7 @@ import org.bukkit.configuration.serialization.ConfigurationSerializable;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Represents a portal between worlds
@@ -21,6 +23,23 @@ public class Portal implements ConfigurationSerializable {
     private final Material frameMaterial;
     private final boolean enabled;
     private final PortalType type;
+    private final int cooldownTicks; // -1 uses the configured default
+    private final DetectionMode detectionMode;
+    private final EntityTransit entityTransit;
+    
+    // Axis-aligned bounds, resolved once so containment checks never touch Location
+    private final UUID worldId;
+    private final double minX, minY, minZ;
+    private final double maxX, maxY, maxZ;
+    private final int minBlockX, minBlockY, minBlockZ;
+    private final int maxBlockX, maxBlockY, maxBlockZ;
+    
+    // Destination coordinates and world handle, so teleports skip name lookups and clones
+    private final double destinationX, destinationY, destinationZ;
+    private final float destinationYaw, destinationPitch;
+    private final int destinationChunkX, destinationChunkZ;
+    private volatile World resolvedDestination;
+    private volatile boolean destinationResolved;
     
     public enum PortalType {
         NETHER_PORTAL,
@@ -28,20 +47,36 @@ public class Portal implements ConfigurationSerializable {
         CUSTOM
     }
     
+    public enum DetectionMode {
+        EVENT,   // Checked on every block change, precise
+        SAMPLED  // Checked by a round-robin task, cheap
+    }
+    
     public Portal(String name, Location location1, Location location2, String destinationWorld, 
                   Location destinationLocation, Material frameMaterial, PortalType type) {
-        this.name = name;
-        this.location1 = location1;
-        this.location2 = location2;
-        this.destinationWorld = destinationWorld;
-        this.destinationLocation = destinationLocation;
-        this.frameMaterial = frameMaterial != null ? frameMaterial : Material.OBSIDIAN;
-        this.type = type != null ? type : PortalType.CUSTOM;
-        this.enabled = true;
+        this(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, true);
     }
     
     public Portal(String name, Location location1, Location location2, String destinationWorld, 
                   Location destinationLocation, Material frameMaterial, PortalType type, boolean enabled) {
+        this(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, -1);
+    }
+    
+    public Portal(String name, Location location1, Location location2, String destinationWorld, 
+                  Location destinationLocation, Material frameMaterial, PortalType type, boolean enabled,
+                  int cooldownTicks) {
+        this(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, DetectionMode.EVENT);
+    }
+    
+    public Portal(String name, Location location1, Location location2, String destinationWorld, 
+                  Location destinationLocation, Material frameMaterial, PortalType type, boolean enabled,
+                  int cooldownTicks, DetectionMode detectionMode) {
+        this(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, detectionMode, EntityTransit.DISABLED);
+    }
+    
+    public Portal(String name, Location location1, Location location2, String destinationWorld, 
+                  Location destinationLocation, Material frameMaterial, PortalType type, boolean enabled,
+                  int cooldownTicks, DetectionMode detectionMode, EntityTransit entityTransit) {
         this.name = name;
         this.location1 = location1;
         this.location2 = location2;
@@ -50,6 +85,32 @@ public class Portal implements ConfigurationSerializable {
         this.frameMaterial = frameMaterial != null ? frameMaterial : Material.OBSIDIAN;
         this.type = type != null ? type : PortalType.CUSTOM;
         this.enabled = enabled;
+        this.cooldownTicks = cooldownTicks < 0 ? -1 : cooldownTicks;
+        this.detectionMode = detectionMode != null ? detectionMode : DetectionMode.EVENT;
+        this.entityTransit = entityTransit != null ? entityTransit : EntityTransit.DISABLED;
+        
+        World world = location1.getWorld();
+        this.worldId = world != null ? world.getUID() : null;
+        this.minX = Math.min(location1.getX(), location2.getX());
+        this.minY = Math.min(location1.getY(), location2.getY());
+        this.minZ = Math.min(location1.getZ(), location2.getZ());
+        this.maxX = Math.max(location1.getX(), location2.getX());
+        this.maxY = Math.max(location1.getY(), location2.getY());
+        this.maxZ = Math.max(location1.getZ(), location2.getZ());
+        this.minBlockX = Math.min(location1.getBlockX(), location2.getBlockX());
+        this.minBlockY = Math.min(location1.getBlockY(), location2.getBlockY());
+        this.minBlockZ = Math.min(location1.getBlockZ(), location2.getBlockZ());
+        this.maxBlockX = Math.max(location1.getBlockX(), location2.getBlockX());
+        this.maxBlockY = Math.max(location1.getBlockY(), location2.getBlockY());
+        this.maxBlockZ = Math.max(location1.getBlockZ(), location2.getBlockZ());
+        
+        this.destinationX = destinationLocation.getX();
+        this.destinationY = destinationLocation.getY();
+        this.destinationZ = destinationLocation.getZ();
+        this.destinationYaw = destinationLocation.getYaw();
+        this.destinationPitch = destinationLocation.getPitch();
+        this.destinationChunkX = destinationLocation.getBlockX() >> 4;
+        this.destinationChunkZ = destinationLocation.getBlockZ() >> 4;
     }
     
     // Getters
@@ -57,38 +118,138 @@ public class Portal implements ConfigurationSerializable {
     public Location getLocation1() { return location1; }
     public Location getLocation2() { return location2; }
     public String getDestinationWorld() { return destinationWorld; }
+    /**
+     * Destination as stored, its world is null when the destination world was not loaded while the portal was read.
+     * Use {@link #createDestinationLocation(World)} for a teleport target.
+     */
     public Location getDestinationLocation() { return destinationLocation; }
     public Material getFrameMaterial() { return frameMaterial; }
     public PortalType getType() { return type; }
     public boolean isEnabled() { return enabled; }
+    public int getCooldownTicks() { return cooldownTicks; }
+    public boolean hasCustomCooldown() { return cooldownTicks >= 0; }
+    public DetectionMode getDetectionMode() { return detectionMode; }
+    public EntityTransit getEntityTransit() { return entityTransit; }
+    
+    // Bounds getters
+    public UUID getWorldId() { return worldId; }
+    public double getMinX() { return minX; }
+    public double getMinY() { return minY; }
+    public double getMinZ() { return minZ; }
+    public double getMaxX() { return maxX; }
+    public double getMaxY() { return maxY; }
+    public double getMaxZ() { return maxZ; }
+    public int getMinBlockX() { return minBlockX; }
+    public int getMinBlockY() { return minBlockY; }
+    public int getMinBlockZ() { return minBlockZ; }
+    public int getMaxBlockX() { return maxBlockX; }
+    public int getMaxBlockY() { return maxBlockY; }
+    public int getMaxBlockZ() { return maxBlockZ; }
+    public int getDestinationChunkX() { return destinationChunkX; }
+    public int getDestinationChunkZ() { return destinationChunkZ; }
+    
+    /**
+     * Get the destination world, looked up once and cached until it is loaded or unloaded
+     * 
+     * @return The destination world or null if it is not loaded
+     */
+    public World getResolvedDestinationWorld() {
+        if (!destinationResolved) {
+            resolvedDestination = Bukkit.getWorld(destinationWorld);
+            destinationResolved = true;
+        }
+        return resolvedDestination;
+    }
+    
+    /**
+     * Update the cached destination world
+     */
+    public void setResolvedDestinationWorld(World world) {
+        resolvedDestination = world;
+        destinationResolved = true;
+    }
+    
+    /**
+     * Forget the cached destination world, it is looked up again on next use
+     */
+    public void invalidateDestination() {
+        destinationResolved = false;
+        resolvedDestination = null;
+    }
+    
+    /**
+     * Check if the destination of this portal is the named world
+     */
+    public boolean isDestination(String worldName) {
+        return destinationWorld.equalsIgnoreCase(worldName);
+    }
+    
+    /**
+     * Create the teleport target in the given destination world
+     */
+    public Location createDestinationLocation(World world) {
+        return new Location(world, destinationX, destinationY, destinationZ, destinationYaw, destinationPitch);
+    }
+    
+    /**
+     * Get a copy of this portal with a different cooldown, -1 to use the default
+     */
+    public Portal withCooldownTicks(int cooldownTicks) {
+        return new Portal(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, detectionMode, entityTransit);
+    }
+    
+    /**
+     * Get a copy of this portal with a different detection mode
+     */
+    public Portal withDetectionMode(DetectionMode detectionMode) {
+        return new Portal(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, detectionMode, entityTransit);
+    }
+    
+    /**
+     * Get a copy of this portal with different entity transit settings
+     */
+    public Portal withEntityTransit(EntityTransit entityTransit) {
+        return new Portal(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, detectionMode, entityTransit);
+    }
+    
+    /**
+     * Get a copy of this portal with a different enabled state
+     */
+    public Portal withEnabled(boolean enabled) {
+        return new Portal(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, detectionMode, entityTransit);
+    }
     
     /**
      * Check if a location is within this portal
      */
     public boolean isInPortal(Location location) {
-        if (!location.getWorld().equals(location1.getWorld())) {
-            return false;
-        }
-        
-        double minX = Math.min(location1.getX(), location2.getX());
-        double maxX = Math.max(location1.getX(), location2.getX());
-        double minY = Math.min(location1.getY(), location2.getY());
-        double maxY = Math.max(location1.getY(), location2.getY());
-        double minZ = Math.min(location1.getZ(), location2.getZ());
-        double maxZ = Math.max(location1.getZ(), location2.getZ());
-        
-        return location.getX() >= minX && location.getX() <= maxX &&
-               location.getY() >= minY && location.getY() <= maxY &&
-               location.getZ() >= minZ && location.getZ() <= maxZ;
+        World world = location.getWorld();
+        return world != null && isInPortal(world.getUID(), location.getX(), location.getY(), location.getZ());
+    }
+    
+    /**
+     * Check if a point in the given world is within this portal
+     */
+    public boolean isInPortal(UUID worldId, double x, double y, double z) {
+        return worldId.equals(this.worldId) && contains(x, y, z);
+    }
+    
+    /**
+     * Check if a point is within the portal bounds, ignoring the world
+     */
+    public boolean contains(double x, double y, double z) {
+        return x >= minX && x <= maxX
+            && y >= minY && y <= maxY
+            && z >= minZ && z <= maxZ;
     }
     
     /**
      * Get the center location of the portal
      */
     public Location getCenterLocation() {
-        double centerX = (location1.getX() + location2.getX()) / 2;
-        double centerY = (location1.getY() + location2.getY()) / 2;
-        double centerZ = (location1.getZ() + location2.getZ()) / 2;
+        double centerX = (minX + maxX) / 2;
+        double centerY = (minY + maxY) / 2;
+        double centerZ = (minZ + maxZ) / 2;
         return new Location(location1.getWorld(), centerX, centerY, centerZ);
     }
     
@@ -96,9 +257,9 @@ public class Portal implements ConfigurationSerializable {
      * Get the size of the portal
      */
     public int[] getSize() {
-        int width = Math.abs((int)(location2.getX() - location1.getX())) + 1;
-        int height = Math.abs((int)(location2.getY() - location1.getY())) + 1;
-        int depth = Math.abs((int)(location2.getZ() - location1.getZ())) + 1;
+        int width = (int) (maxX - minX) + 1;
+        int height = (int) (maxY - minY) + 1;
+        int depth = (int) (maxZ - minZ) + 1;
         return new int[]{width, height, depth};
     }
     
@@ -113,6 +274,15 @@ public class Portal implements ConfigurationSerializable {
         map.put("frameMaterial", frameMaterial.name());
         map.put("type", type.name());
         map.put("enabled", enabled);
+        if (cooldownTicks >= 0) {
+            map.put("cooldownTicks", cooldownTicks);
+        }
+        if (detectionMode != DetectionMode.EVENT) {
+            map.put("detectionMode", detectionMode.name());
+        }
+        if (!entityTransit.isDefault()) {
+            map.put("entityTransit", entityTransit.serialize());
+        }
         return map;
     }
     
@@ -126,8 +296,12 @@ public class Portal implements ConfigurationSerializable {
         Material frameMaterial = Material.valueOf((String) map.get("frameMaterial"));
         PortalType type = PortalType.valueOf((String) map.get("type"));
         boolean enabled = (Boolean) map.getOrDefault("enabled", true);
+        int cooldownTicks = ((Number) map.getOrDefault("cooldownTicks", -1)).intValue();
+        DetectionMode detectionMode = DetectionMode.valueOf((String) map.getOrDefault("detectionMode", DetectionMode.EVENT.name()));
+        Map<String, Object> transitMap = (Map<String, Object>) map.get("entityTransit");
+        EntityTransit entityTransit = transitMap != null ? EntityTransit.deserialize(transitMap) : EntityTransit.DISABLED;
         
-        return new Portal(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled);
+        return new Portal(name, location1, location2, destinationWorld, destinationLocation, frameMaterial, type, enabled, cooldownTicks, detectionMode, entityTransit);
     }
     
     @Override
@@ -9,13 +9,16 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.portals.Portal.DetectionMode;
 import org.hydr4.lilworlds.portals.Portal.PortalType;
 import org.hydr4.lilworlds.utils.ColorUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -53,6 +56,8 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
                 return handleTeleport(sender, args);
             case "frame":
                 return handleFrame(sender, args);
+            case "set":
+                return handleSet(sender, args);
             case "reload":
                 return handleReload(sender);
             case "help":
@@ -362,6 +367,13 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(getMessage("portal-info-frame").replace("{material}", portal.getFrameMaterial().toString()));
         sender.sendMessage(getMessage("portal-info-size").replace("{size}", calculatePortalSize(portal)));
         sender.sendMessage(getMessage("portal-info-enabled").replace("{status}", portal.isEnabled() ? getMessage("portal-enabled") : getMessage("portal-disabled")));
+        sender.sendMessage(getMessage("portal-info-cooldown").replace("{cooldown}", formatCooldown(portal)));
+        sender.sendMessage(getMessage("portal-info-detection").replace("{mode}", portal.getDetectionMode().name().toLowerCase()));
+        sender.sendMessage(getMessage("portal-info-entities")
+            .replace("{status}", portal.getEntityTransit().isEnabled() ? getMessage("portal-enabled") : getMessage("portal-disabled"))
+            .replace("{radius}", String.valueOf(portal.getEntityTransit().getRadius()))
+            .replace("{types}", formatEntityTypes(portal.getEntityTransit())));
+        sendMetrics(sender, portalManager.getMetrics().getSnapshot(portal));
         sender.sendMessage(getMessage("portal-info-footer"));
         
         return true;
@@ -392,26 +404,32 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
             return true;
         }
         
-        // Check cooldown (simplified for now)
-        // TODO: Implement cooldown system in PortalManager
+        // Check cooldown
+        if (portalManager.isOnCooldown(player)) {
+            long seconds = (portalManager.getRemainingCooldown(player) + 999) / 1000;
+            player.sendMessage(getMessage("portal-teleport-cooldown").replace("{time}", String.valueOf(seconds)));
+            return true;
+        }
         
         // Check if already in destination world
-        if (player.getWorld().getName().equals(portal.getDestinationWorld())) {
+        if (player.getWorld() == portal.getResolvedDestinationWorld()) {
             player.sendMessage(getMessage("portal-teleport-same-world"));
             return true;
         }
         
         player.sendMessage(getMessage("portal-teleporting").replace("{name}", portalName));
         
-        // Teleport player
-        World destWorld = Bukkit.getWorld(portal.getDestinationWorld());
-        if (destWorld != null) {
-            player.teleport(portal.getDestinationLocation());
-            player.sendMessage(getMessage("portal-teleport-success").replace("{world}", portal.getDestinationWorld()));
-            // TODO: Set cooldown
-        } else {
-            player.sendMessage(getMessage("portal-teleport-failed"));
-        }
+        // Teleport player once the destination chunk is loaded
+        portalManager.teleportPlayerAsync(player, portal).thenAccept(success -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (success) {
+                player.sendMessage(getMessage("portal-teleport-success").replace("{world}", portal.getDestinationWorld()));
+            } else {
+                player.sendMessage(getMessage("portal-teleport-failed"));
+            }
+        });
         
         return true;
     }
@@ -438,12 +456,17 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
         
         switch (action) {
             case "create":
-                // TODO: Implement frame creation
-                sender.sendMessage(getMessage("portal-frame-created").replace("{name}", portalName));
+                portalManager.createPortalFrame(portal, sender);
                 break;
             case "remove":
-                // TODO: Implement frame removal
-                sender.sendMessage(getMessage("portal-frame-removed").replace("{name}", portalName));
+                portalManager.removePortalFrame(portal, sender);
+                break;
+            case "cancel":
+                if (portalManager.cancelPortalFrame(portalName)) {
+                    sender.sendMessage(getMessage("portal-frame-cancelled").replace("{name}", portal.getName()));
+                } else {
+                    sender.sendMessage(getMessage("portal-frame-not-running").replace("{name}", portal.getName()));
+                }
                 break;
             default:
                 sender.sendMessage(getMessage("portal-frame-invalid-action"));
@@ -453,6 +476,172 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    private boolean handleSet(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("lilworlds.portal.set")) {
+            sender.sendMessage(getMessage("portal-permission-denied"));
+            return true;
+        }
+        
+        if (args.length < 4) {
+            sender.sendMessage(getMessage("portal-usage-set"));
+            return true;
+        }
+        
+        String portalName = args[1];
+        String property = args[2].toLowerCase();
+        String value = args[3];
+        
+        Portal portal = portalManager.getPortal(portalName);
+        if (portal == null) {
+            sender.sendMessage(getMessage("portal-not-found").replace("{name}", portalName));
+            return true;
+        }
+        
+        switch (property) {
+            case "cooldown":
+                return handleSetCooldown(sender, portal, value);
+            case "enabled":
+                return handleSetEnabled(sender, portal, value);
+            case "detection":
+                return handleSetDetection(sender, portal, value);
+            case "entities":
+                return handleSetEntities(sender, portal, value);
+            case "entity-radius":
+                return handleSetEntityRadius(sender, portal, value);
+            case "entity-types":
+                return handleSetEntityTypes(sender, portal, value);
+            default:
+                sender.sendMessage(getMessage("portal-set-invalid-property"));
+                return true;
+        }
+    }
+    
+    private boolean handleSetEnabled(CommandSender sender, Portal portal, String value) {
+        boolean enabled;
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("on")) {
+            enabled = true;
+        } else if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("off")) {
+            enabled = false;
+        } else {
+            sender.sendMessage(getMessage("portal-set-invalid-enabled").replace("{value}", value));
+            return true;
+        }
+        
+        portalManager.setPortalEnabled(portal.getName(), enabled);
+        sender.sendMessage(getMessage("portal-set-enabled")
+            .replace("{name}", portal.getName())
+            .replace("{status}", enabled ? getMessage("portal-enabled") : getMessage("portal-disabled")));
+        return true;
+    }
+    
+    private boolean handleSetDetection(CommandSender sender, Portal portal, String value) {
+        DetectionMode mode;
+        try {
+            mode = DetectionMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(getMessage("portal-set-invalid-detection").replace("{value}", value));
+            return true;
+        }
+        
+        portalManager.setPortalDetectionMode(portal.getName(), mode);
+        sender.sendMessage(getMessage("portal-set-detection")
+            .replace("{name}", portal.getName())
+            .replace("{mode}", mode.name().toLowerCase()));
+        return true;
+    }
+    
+    private boolean handleSetEntities(CommandSender sender, Portal portal, String value) {
+        boolean enabled;
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("on")) {
+            enabled = true;
+        } else if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("off")) {
+            enabled = false;
+        } else {
+            sender.sendMessage(getMessage("portal-set-invalid-enabled").replace("{value}", value));
+            return true;
+        }
+        
+        portalManager.setPortalEntityTransit(portal.getName(), portal.getEntityTransit().withEnabled(enabled));
+        sender.sendMessage(getMessage("portal-set-entities")
+            .replace("{name}", portal.getName())
+            .replace("{status}", enabled ? getMessage("portal-enabled") : getMessage("portal-disabled")));
+        return true;
+    }
+    
+    private boolean handleSetEntityRadius(CommandSender sender, Portal portal, String value) {
+        double radius;
+        try {
+            radius = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            radius = -1;
+        }
+        if (radius < 0 || radius > EntityTransit.MAX_RADIUS) {
+            sender.sendMessage(getMessage("portal-set-invalid-entity-radius")
+                .replace("{value}", value)
+                .replace("{max}", String.valueOf((int) EntityTransit.MAX_RADIUS)));
+            return true;
+        }
+        
+        portalManager.setPortalEntityTransit(portal.getName(), portal.getEntityTransit().withRadius(radius));
+        sender.sendMessage(getMessage("portal-set-entity-radius")
+            .replace("{name}", portal.getName())
+            .replace("{radius}", String.valueOf(radius)));
+        return true;
+    }
+    
+    private boolean handleSetEntityTypes(CommandSender sender, Portal portal, String value) {
+        List<EntityType> types = new ArrayList<>();
+        if (!value.equalsIgnoreCase("all")) {
+            for (String name : value.split(",")) {
+                List<EntityType> parsed = EntityTransit.parseEntityTypes(Collections.singletonList(name));
+                if (parsed.isEmpty() || parsed.get(0) == EntityType.PLAYER) {
+                    sender.sendMessage(getMessage("portal-set-invalid-entity-type").replace("{value}", name));
+                    return true;
+                }
+                types.addAll(parsed);
+            }
+        }
+        
+        EntityTransit transit = portal.getEntityTransit().withEntityTypes(types);
+        portalManager.setPortalEntityTransit(portal.getName(), transit);
+        sender.sendMessage(getMessage("portal-set-entity-types")
+            .replace("{name}", portal.getName())
+            .replace("{types}", formatEntityTypes(transit)));
+        return true;
+    }
+    
+    private String formatEntityTypes(EntityTransit transit) {
+        if (transit.getEntityTypes().isEmpty()) {
+            return getMessage("portal-entity-types-all");
+        }
+        return String.join(", ", transit.getEntityTypeNames()).toLowerCase();
+    }
+    
+    private boolean handleSetCooldown(CommandSender sender, Portal portal, String value) {
+        if (value.equalsIgnoreCase("default")) {
+            portalManager.setPortalCooldown(portal.getName(), -1);
+            sender.sendMessage(getMessage("portal-set-cooldown-default").replace("{name}", portal.getName()));
+            return true;
+        }
+        
+        double seconds;
+        try {
+            seconds = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            seconds = -1;
+        }
+        if (seconds < 0 || seconds > 86400) {
+            sender.sendMessage(getMessage("portal-set-invalid-cooldown").replace("{value}", value));
+            return true;
+        }
+        
+        portalManager.setPortalCooldown(portal.getName(), (int) Math.round(seconds * 20));
+        sender.sendMessage(getMessage("portal-set-cooldown")
+            .replace("{name}", portal.getName())
+            .replace("{seconds}", formatSeconds((int) Math.round(seconds * 20))));
+        return true;
+    }
+    
     private boolean handleReload(CommandSender sender) {
         if (!sender.hasPermission("lilworlds.portal.reload")) {
             sender.sendMessage(getMessage("portal-permission-denied"));
@@ -479,6 +668,7 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(getMessage("cmd-portal-info"));
         sender.sendMessage(getMessage("cmd-portal-tp"));
         sender.sendMessage(getMessage("cmd-portal-frame"));
+        sender.sendMessage(getMessage("cmd-portal-set"));
         sender.sendMessage(getMessage("cmd-portal-reload"));
         sender.sendMessage(getMessage("portal-help-footer"));
     }
@@ -491,6 +681,45 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
         return String.format("%.1f, %.1f, %.1f", loc.getX(), loc.getY(), loc.getZ());
     }
     
+    private void sendMetrics(CommandSender sender, PortalMetrics.Snapshot metrics) {
+        sender.sendMessage(getMessage("portal-info-usage")
+            .replace("{players}", String.valueOf(metrics.getTeleports()))
+            .replace("{entities}", String.valueOf(metrics.getEntityTeleports()))
+            .replace("{failures}", String.valueOf(metrics.getTotalFailures())));
+        
+        if (metrics.getTeleports() + metrics.getEntityTeleports() > 0) {
+            // Percentiles are only known to a bucket, so show the bound the value falls under
+            long p95 = metrics.getLatencyPercentileMillis(95);
+            long[] bounds = PortalMetrics.Snapshot.getLatencyBucketBounds();
+            sender.sendMessage(getMessage("portal-info-latency")
+                .replace("{average}", String.format("%.1f", metrics.getAverageLatencyMillis()))
+                .replace("{p95}", p95 < 0 ? ">" + bounds[bounds.length - 1] : "<" + p95)
+                .replace("{max}", String.format("%.1f", metrics.getMaxLatencyMillis())));
+        }
+        
+        if (metrics.getTotalFailures() > 0) {
+            List<String> reasons = new ArrayList<>();
+            for (PortalMetrics.FailureReason reason : PortalMetrics.FailureReason.values()) {
+                long count = metrics.getFailures(reason);
+                if (count > 0) {
+                    reasons.add(reason.name().toLowerCase().replace('_', '-') + " " + count);
+                }
+            }
+            sender.sendMessage(getMessage("portal-info-failures").replace("{reasons}", String.join(", ", reasons)));
+        }
+    }
+    
+    private String formatCooldown(Portal portal) {
+        if (portal.hasCustomCooldown()) {
+            return formatSeconds(portal.getCooldownTicks()) + "s";
+        }
+        return getMessage("portal-cooldown-default").replace("{seconds}", formatSeconds(portalManager.getDefaultCooldownTicks()));
+    }
+    
+    private String formatSeconds(int ticks) {
+        return ticks % 20 == 0 ? String.valueOf(ticks / 20) : String.format("%.2f", ticks / 20.0);
+    }
+    
     private String getPortalTypeString(PortalType type) {
         switch (type) {
             case CUSTOM:
@@ -521,7 +750,7 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
         
         if (args.length == 1) {
             // Main subcommands
-            List<String> subcommands = Arrays.asList("create", "delete", "list", "info", "tp", "frame", "reload", "help");
+            List<String> subcommands = Arrays.asList("create", "delete", "list", "info", "tp", "frame", "set", "reload", "help");
             return subcommands.stream()
                     .filter(s -> s.toLowerCase().startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
@@ -558,7 +787,7 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
             case "frame":
                 if (args.length == 2) {
                     // Frame actions
-                    return Arrays.asList("create", "remove").stream()
+                    return Arrays.asList("create", "remove", "cancel").stream()
                             .filter(action -> action.toLowerCase().startsWith(args[1].toLowerCase()))
                             .collect(Collectors.toList());
                 } else if (args.length == 3) {
@@ -569,6 +798,57 @@ public class PortalCommand implements CommandExecutor, TabCompleter {
                             .collect(Collectors.toList());
                 }
                 break;
+                
+            case "set":
+                if (args.length == 2) {
+                    // Portal names
+                    return portalManager.getAllPortals().stream()
+                            .map(Portal::getName)
+                            .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
+                            .collect(Collectors.toList());
+                } else if (args.length == 3) {
+                    // Properties
+                    return Arrays.asList("cooldown", "enabled", "detection", "entities", "entity-radius", "entity-types").stream()
+                            .filter(property -> property.startsWith(args[2].toLowerCase()))
+                            .collect(Collectors.toList());
+                } else if (args.length == 4 && args[2].equalsIgnoreCase("cooldown")) {
+                    return Arrays.asList("default", "0", "3", "5", "10").stream()
+                            .filter(value -> value.startsWith(args[3].toLowerCase()))
+                            .collect(Collectors.toList());
+                } else if (args.length == 4 && args[2].equalsIgnoreCase("enabled")) {
+                    return Arrays.asList("true", "false").stream()
+                            .filter(value -> value.startsWith(args[3].toLowerCase()))
+                            .collect(Collectors.toList());
+                } else if (args.length == 4 && args[2].equalsIgnoreCase("entities")) {
+                    return Arrays.asList("on", "off").stream()
+                            .filter(value -> value.startsWith(args[3].toLowerCase()))
+                            .collect(Collectors.toList());
+                } else if (args.length == 4 && args[2].equalsIgnoreCase("entity-radius")) {
+                    return Arrays.asList("0", "0.5", "1", "2").stream()
+                            .filter(value -> value.startsWith(args[3].toLowerCase()))
+                            .collect(Collectors.toList());
+                } else if (args.length == 4 && args[2].equalsIgnoreCase("entity-types")) {
+                    // Complete the last entry of a comma separated list
+                    String typed = args[3].toLowerCase();
+                    String prefix = typed.substring(0, typed.lastIndexOf(',') + 1);
+                    String last = typed.substring(prefix.length());
+                    List<String> values = new ArrayList<>();
+                    if (prefix.isEmpty() && "all".startsWith(last)) {
+                        values.add("all");
+                    }
+                    for (EntityType type : EntityType.values()) {
+                        String name = type.name().toLowerCase();
+                        if (type != EntityType.PLAYER && name.startsWith(last)) {
+                            values.add(prefix + name);
+                        }
+                    }
+                    return values;
+                } else if (args.length == 4 && args[2].equalsIgnoreCase("detection")) {
+                    return Arrays.asList("event", "sampled").stream()
+                            .filter(value -> value.startsWith(args[3].toLowerCase()))
+                            .collect(Collectors.toList());
+                }
+                break;
         }
         
         return completions;
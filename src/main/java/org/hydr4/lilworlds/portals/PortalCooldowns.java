@@ -0,0 +1,99 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Portal cooldowns measured in server ticks
+ * Each entry stores the tick its cooldown ends, so a check is a single map probe. Expired
+ * entries are purged on a timer and entries for players who quit are dropped right away.
+ */
+public class PortalCooldowns {
+    
+    private final LilWorlds plugin;
+    private final Map<UUID, Long> expiryTicks = new ConcurrentHashMap<>();
+    private volatile long currentTick;
+    private BukkitTask clockTask;
+    private BukkitTask purgeTask;
+    
+    public PortalCooldowns(LilWorlds plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Start the tick clock and the expiry sweep
+     * 
+     * @param purgeIntervalTicks How often expired entries are removed
+     */
+    public void start(long purgeIntervalTicks) {
+        stop();
+        clockTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> currentTick++, 1L, 1L);
+        purgeTask = Bukkit.getScheduler().runTaskTimer(plugin, this::purgeExpired, purgeIntervalTicks, purgeIntervalTicks);
+    }
+    
+    /**
+     * Stop the scheduled tasks
+     */
+    public void stop() {
+        if (clockTask != null) {
+            clockTask.cancel();
+            clockTask = null;
+        }
+        if (purgeTask != null) {
+            purgeTask.cancel();
+            purgeTask = null;
+        }
+    }
+    
+    /**
+     * Put an entity on cooldown for the given number of ticks
+     */
+    public void apply(UUID id, long durationTicks) {
+        if (durationTicks > 0) {
+            expiryTicks.put(id, currentTick + durationTicks);
+        }
+    }
+    
+    /**
+     * Check if an entity is on cooldown
+     */
+    public boolean isOnCooldown(UUID id) {
+        Long expiry = expiryTicks.get(id);
+        return expiry != null && expiry > currentTick;
+    }
+    
+    /**
+     * Get the remaining cooldown in ticks, 0 if none
+     */
+    public long getRemainingTicks(UUID id) {
+        Long expiry = expiryTicks.get(id);
+        return expiry != null ? Math.max(0, expiry - currentTick) : 0;
+    }
+    
+    /**
+     * Drop the cooldown of an entity
+     */
+    public void clear(UUID id) {
+        expiryTicks.remove(id);
+    }
+    
+    /**
+     * Remove every expired entry
+     */
+    public void purgeExpired() {
+        long now = currentTick;
+        expiryTicks.values().removeIf(expiry -> expiry <= now);
+    }
+    
+    /**
+     * Get the number of tracked cooldowns
+     */
+    public int size() {
+        return expiryTicks.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,291 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.portals.Portal.PortalType;
+import org.hydr4.lilworlds.utils.ColorUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds and removes portal frames incrementally on the main thread
+ * Block writes are grouped by chunk and applied within a per-tick time budget, so large
+ * portal regions are spread over several ticks instead of freezing the server.
+ */
+public class PortalFrameBuilder {
+    
+    private static final int BLOCKS_PER_TIME_CHECK = 64;
+    private static final int PROGRESS_STEP = 25; // percent
+    
+    private final LilWorlds plugin;
+    private final Map<String, FrameJob> jobs = new LinkedHashMap<>();
+    private BukkitTask task;
+    private long tickBudgetNanos;
+    
+    public PortalFrameBuilder(LilWorlds plugin) {
+        this.plugin = plugin;
+        loadConfiguration();
+    }
+    
+    /**
+     * Load the per-tick time budget from config
+     */
+    public void loadConfiguration() {
+        double budgetMillis = plugin.getConfig().getDouble("portals.frame-builder.tick-budget-ms", 5.0);
+        this.tickBudgetNanos = (long) (Math.max(0.5, budgetMillis) * 1_000_000L);
+    }
+    
+    /**
+     * Queue building the frame (and portal blocks) of a portal
+     * 
+     * @param portal The portal to build
+     * @param sender Who to report progress to, may be null
+     */
+    public void build(Portal portal, CommandSender sender) {
+        submit(new FrameJob(portal, false, sender));
+    }
+    
+    /**
+     * Queue clearing every block in a portal region
+     * 
+     * @param portal The portal to clear
+     * @param sender Who to report progress to, may be null
+     */
+    public void clear(Portal portal, CommandSender sender) {
+        submit(new FrameJob(portal, true, sender));
+    }
+    
+    /**
+     * Cancel the running job for a portal, blocks already placed are kept
+     * 
+     * @return true if a job was running
+     */
+    public boolean cancel(String portalName) {
+        return jobs.remove(portalName.toLowerCase()) != null;
+    }
+    
+    /**
+     * Check if a job is queued or running for a portal
+     */
+    public boolean isRunning(String portalName) {
+        return jobs.containsKey(portalName.toLowerCase());
+    }
+    
+    /**
+     * Get the number of queued or running jobs
+     */
+    public int getActiveJobs() {
+        return jobs.size();
+    }
+    
+    /**
+     * Drop all jobs and stop the tick task
+     */
+    public void shutdown() {
+        jobs.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    private void submit(FrameJob job) {
+        if (job.world == null) {
+            return;
+        }
+        
+        // A new job for the same portal replaces the old one
+        jobs.remove(job.key);
+        jobs.put(job.key, job);
+        job.sendMessage("portal-frame-" + (job.clearing ? "clearing" : "started"), "{blocks}", String.valueOf(job.total));
+        
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+    
+    private void tick() {
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        
+        Iterator<FrameJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext() && System.nanoTime() < deadline) {
+            FrameJob job = iterator.next();
+            if (Bukkit.getWorld(job.world.getUID()) == null) {
+                iterator.remove(); // World was unloaded
+                continue;
+            }
+            
+            if (job.run(deadline)) {
+                iterator.remove();
+                job.sendMessage("portal-frame-" + (job.clearing ? "removed" : "created"), "{blocks}", String.valueOf(job.total));
+            }
+        }
+        
+        if (jobs.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+    
+    private String getMessage(String key) {
+        return ColorUtils.colorize(plugin.getConfigManager().getMessagesConfig().getString(key, "&cMessage not found: " + key));
+    }
+    
+    /**
+     * A frame build or clear, walked chunk column by chunk column
+     */
+    private class FrameJob {
+        final String key;
+        final Portal portal;
+        final World world;
+        final boolean clearing;
+        final CommandSender sender;
+        final long total;
+        
+        final int minX, minY, minZ;
+        final int maxX, maxY, maxZ;
+        final int minChunkX, maxChunkX, maxChunkZ;
+        
+        // Current chunk column and cursor inside it
+        int chunkX, chunkZ;
+        int startX, endX, startZ, endZ;
+        int x, y, z;
+        boolean done;
+        
+        long processed;
+        int nextProgressReport = PROGRESS_STEP;
+        
+        FrameJob(Portal portal, boolean clearing, CommandSender sender) {
+            this.key = portal.getName().toLowerCase();
+            this.portal = portal;
+            this.world = portal.getLocation1().getWorld();
+            this.clearing = clearing;
+            this.sender = sender;
+            
+            this.minX = portal.getMinBlockX();
+            this.minY = portal.getMinBlockY();
+            this.minZ = portal.getMinBlockZ();
+            this.maxX = portal.getMaxBlockX();
+            this.maxY = portal.getMaxBlockY();
+            this.maxZ = portal.getMaxBlockZ();
+            this.total = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+            
+            this.minChunkX = minX >> 4;
+            this.maxChunkX = maxX >> 4;
+            this.maxChunkZ = maxZ >> 4;
+            this.chunkX = minChunkX;
+            this.chunkZ = minZ >> 4;
+            enterChunk();
+        }
+        
+        /**
+         * Apply block writes until the deadline passes
+         * 
+         * @return true once every block has been written
+         */
+        boolean run(long deadline) {
+            int sinceTimeCheck = 0;
+            
+            while (!done) {
+                Block block = world.getBlockAt(x, y, z);
+                Material material = getTargetMaterial(x, y, z);
+                if (block.getType() != material) {
+                    // Portal blocks break themselves on physics updates and frame blocks need none;
+                    // clearing keeps physics so attached blocks and fluids around the region update
+                    block.setType(material, material == Material.AIR);
+                }
+                
+                processed++;
+                advance();
+                
+                if (++sinceTimeCheck >= BLOCKS_PER_TIME_CHECK) {
+                    sinceTimeCheck = 0;
+                    reportProgress();
+                    if (System.nanoTime() >= deadline) {
+                        return false;
+                    }
+                }
+            }
+            
+            return true;
+        }
+        
+        private Material getTargetMaterial(int x, int y, int z) {
+            if (clearing) {
+                return Material.AIR;
+            }
+            
+            boolean isFrame = x == minX || x == maxX
+                || y == minY || y == maxY
+                || z == minZ || z == maxZ;
+            
+            if (isFrame) {
+                return portal.getFrameMaterial();
+            } else if (portal.getType() == PortalType.NETHER_PORTAL) {
+                return Material.NETHER_PORTAL;
+            } else if (portal.getType() == PortalType.END_PORTAL) {
+                return Material.END_PORTAL;
+            }
+            return Material.AIR;
+        }
+        
+        private void enterChunk() {
+            startX = Math.max(minX, chunkX << 4);
+            endX = Math.min(maxX, (chunkX << 4) + 15);
+            startZ = Math.max(minZ, chunkZ << 4);
+            endZ = Math.min(maxZ, (chunkZ << 4) + 15);
+            x = startX;
+            z = startZ;
+            y = minY;
+        }
+        
+        private void advance() {
+            if (++y <= maxY) {
+                return;
+            }
+            y = minY;
+            if (++z <= endZ) {
+                return;
+            }
+            z = startZ;
+            if (++x <= endX) {
+                return;
+            }
+            
+            // Move on to the next chunk column
+            if (++chunkX > maxChunkX) {
+                chunkX = minChunkX;
+                if (++chunkZ > maxChunkZ) {
+                    done = true;
+                    return;
+                }
+            }
+            enterChunk();
+        }
+        
+        private void reportProgress() {
+            int percent = (int) (processed * 100 / total);
+            if (percent >= nextProgressReport && percent < 100) {
+                nextProgressReport = (percent / PROGRESS_STEP + 1) * PROGRESS_STEP;
+                sendMessage("portal-frame-progress", "{percent}", String.valueOf(percent));
+            }
+        }
+        
+        void sendMessage(String messageKey, String placeholder, String value) {
+            if (sender == null || (sender instanceof Player && !((Player) sender).isOnline())) {
+                return;
+            }
+            sender.sendMessage(getMessage(messageKey)
+                .replace("{name}", portal.getName())
+                .replace(placeholder, value));
+        }
+    }
+}
\ No newline at end of file
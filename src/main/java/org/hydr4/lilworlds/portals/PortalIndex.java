@@ -0,0 +1,120 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.util.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Spatial index of portals, one R-tree per world
+ */
+public class PortalIndex {
+    
+    private final Map<UUID, PortalRTree> worlds = new HashMap<>();
+    
+    /**
+     * Replace the whole index with the given portals, packing each world's tree in one pass
+     */
+    public void bulkLoad(Collection<Portal> portals) {
+        Map<UUID, List<Portal>> byWorld = new HashMap<>();
+        for (Portal portal : portals) {
+            if (portal.getWorldId() != null) {
+                byWorld.computeIfAbsent(portal.getWorldId(), id -> new ArrayList<>()).add(portal);
+            }
+        }
+        
+        worlds.clear();
+        for (Map.Entry<UUID, List<Portal>> entry : byWorld.entrySet()) {
+            worlds.put(entry.getKey(), PortalRTree.bulkLoad(entry.getValue()));
+        }
+    }
+    
+    /**
+     * Index the portals of a world that just loaded
+     */
+    public void addWorld(UUID worldId, Collection<Portal> portals) {
+        PortalRTree tree = worlds.get(worldId);
+        if (tree == null) {
+            worlds.put(worldId, PortalRTree.bulkLoad(portals));
+        } else {
+            for (Portal portal : portals) {
+                tree.insert(portal);
+            }
+        }
+    }
+    
+    /**
+     * Drop the tree of a world
+     */
+    public void removeWorld(UUID worldId) {
+        worlds.remove(worldId);
+    }
+    
+    /**
+     * Add a portal
+     */
+    public void add(Portal portal) {
+        UUID worldId = portal.getWorldId();
+        if (worldId != null) {
+            worlds.computeIfAbsent(worldId, id -> new PortalRTree()).insert(portal);
+        }
+    }
+    
+    /**
+     * Remove a portal
+     */
+    public void remove(Portal portal) {
+        UUID worldId = portal.getWorldId();
+        if (worldId == null) {
+            return;
+        }
+        
+        PortalRTree tree = worlds.get(worldId);
+        if (tree != null && tree.remove(portal) && tree.isEmpty()) {
+            worlds.remove(worldId);
+        }
+    }
+    
+    /**
+     * Drop every indexed portal
+     */
+    public void clear() {
+        worlds.clear();
+    }
+    
+    /**
+     * Find the portal containing a location
+     * 
+     * @param enabledOnly Skip disabled portals
+     */
+    public Portal findAt(Location location, boolean enabledOnly) {
+        World world = location.getWorld();
+        if (world == null) {
+            return null;
+        }
+        
+        PortalRTree tree = worlds.get(world.getUID());
+        return tree != null ? tree.findAt(location.getX(), location.getY(), location.getZ(), enabledOnly) : null;
+    }
+    
+    /**
+     * Get the portals of a world whose region intersects a box
+     * 
+     * @param enabledOnly Skip disabled portals
+     */
+    public List<Portal> query(UUID worldId, BoundingBox box, boolean enabledOnly) {
+        List<Portal> result = new ArrayList<>();
+        PortalRTree tree = worlds.get(worldId);
+        if (tree != null) {
+            tree.query(box.getMinX(), box.getMinY(), box.getMinZ(), box.getMaxX(), box.getMaxY(), box.getMaxZ(),
+                enabledOnly, result::add);
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -2,15 +2,24 @@ package org.hydr4.lilworlds.portals;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerPortalEvent;
-import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.hydr4.lilworlds.LilWorlds;
 import org.hydr4.lilworlds.api.events.WorldTeleportEvent;
+import org.hydr4.lilworlds.portals.Portal.DetectionMode;
+import org.hydr4.lilworlds.portals.PortalMetrics.FailureReason;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Handles portal-related events
@@ -19,10 +28,14 @@ public class PortalListener implements Listener {
     
     private final LilWorlds plugin;
     private final PortalManager portalManager;
+    private final Map<UUID, PlayerPortalState> playerStates = new HashMap<>();
+    private final PortalSampler sampler;
     
     public PortalListener(LilWorlds plugin, PortalManager portalManager) {
         this.plugin = plugin;
         this.portalManager = portalManager;
+        this.sampler = new PortalSampler(plugin, portalManager, this);
+        this.sampler.start();
     }
     
     @EventHandler(priority = EventPriority.HIGH)
@@ -34,36 +47,91 @@ public class PortalListener implements Listener {
         
         if (to == null) return;
         
+        // Ignore head rotation and movement inside the same block
+        Location from = event.getFrom();
+        World world = to.getWorld();
+        int blockX = to.getBlockX();
+        int blockY = to.getBlockY();
+        int blockZ = to.getBlockZ();
+        if (from.getWorld() == world && from.getBlockX() == blockX
+                && from.getBlockY() == blockY && from.getBlockZ() == blockZ) {
+            return;
+        }
+        
+        // Sampled portals are left to the sampler
+        if (!portalManager.hasEventDrivenPortals()) {
+            return;
+        }
+        
+        PlayerPortalState state = playerStates.computeIfAbsent(player.getUniqueId(), id -> new PlayerPortalState());
+        detect(player, to, state, DetectionMode.EVENT);
+    }
+    
+    /**
+     * Check whether a player entered a portal using the given detection mode, and teleport them if so
+     */
+    void detect(Player player, Location location, PlayerPortalState state, DetectionMode mode) {
+        World world = location.getWorld();
+        int blockX = location.getBlockX();
+        int blockY = location.getBlockY();
+        int blockZ = location.getBlockZ();
+        if (state.isAt(world, blockX, blockY, blockZ)) {
+            return;
+        }
+        state.moveTo(world, blockX, blockY, blockZ);
+        
         // Check if player moved into a portal
-        Portal portal = portalManager.getPortalAtLocation(to);
-        if (portal != null) {
-            // Check if player is on cooldown
-            if (portalManager.isOnCooldown(player)) {
-                long remaining = portalManager.getRemainingCooldown(player);
-                if (remaining > 0) {
-                    return; // Don't spam messages
-                }
-            }
-            
-            // Fire custom teleport event
-            org.bukkit.World destWorld = org.bukkit.Bukkit.getWorld(portal.getDestinationWorld());
-            if (destWorld != null) {
-                WorldTeleportEvent teleportEvent = new WorldTeleportEvent(player, to.getWorld(), destWorld, portal.getDestinationLocation());
-                plugin.getServer().getPluginManager().callEvent(teleportEvent);
-                
-                if (teleportEvent.isCancelled()) {
-                    return;
-                }
-            }
+        Portal portal = portalManager.getPortalAtLocation(location);
+        if (portal == null || portal.getDetectionMode() != mode) {
+            state.insidePortal = false;
+            return;
+        }
+        
+        // Only trigger once per visit to a portal region
+        if (state.insidePortal) {
+            return;
+        }
+        
+        // Check if player is on cooldown
+        if (portalManager.isOnCooldown(player)) {
+            return; // Don't spam messages, retry on the next block change
+        }
+        
+        state.insidePortal = true;
+        
+        // Fire custom teleport event
+        World destWorld = portal.getResolvedDestinationWorld();
+        if (destWorld != null) {
+            WorldTeleportEvent teleportEvent = new WorldTeleportEvent(player, world, destWorld, portal.createDestinationLocation(destWorld));
+            plugin.getServer().getPluginManager().callEvent(teleportEvent);
             
-            // Attempt teleportation
-            boolean success = portalManager.teleportPlayer(player, portal);
-            if (success) {
-                player.sendMessage(ChatColor.GREEN + "Teleported through portal: " + ChatColor.YELLOW + portal.getName());
-            } else {
-                player.sendMessage(ChatColor.RED + "Failed to use portal: " + portal.getName());
+            if (teleportEvent.isCancelled()) {
+                portalManager.getMetrics().recordFailure(portal, FailureReason.CANCELLED);
+                return;
             }
         }
+        
+        // Attempt teleportation once the destination chunk is loaded
+        teleport(player, portal);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerStates.remove(event.getPlayer().getUniqueId());
+        sampler.forget(event.getPlayer().getUniqueId());
+        portalManager.clearCooldown(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        portalManager.handleWorldLoad(event.getWorld());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        if (event.isCancelled()) return;
+        
+        portalManager.handleWorldUnload(event.getWorld());
     }
     
     @EventHandler(priority = EventPriority.HIGH)
@@ -80,28 +148,20 @@ public class PortalListener implements Listener {
             event.setCancelled(true);
             
             // Handle with our portal system instead
-            boolean success = portalManager.teleportPlayer(player, portal);
+            teleport(player, portal);
+        }
+    }
+    
+    private void teleport(Player player, Portal portal) {
+        portalManager.teleportPlayerAsync(player, portal).thenAccept(success -> {
+            if (!player.isOnline()) {
+                return;
+            }
             if (success) {
                 player.sendMessage(ChatColor.GREEN + "Teleported through portal: " + ChatColor.YELLOW + portal.getName());
             } else {
                 player.sendMessage(ChatColor.RED + "Failed to use portal: " + portal.getName());
             }
-        }
-    }
-    
-    @EventHandler(priority = EventPriority.MONITOR)
-    public void onPlayerTeleport(PlayerTeleportEvent event) {
-        if (event.isCancelled()) return;
-        
-        // Log portal usage for debugging
-        if (event.getCause() == PlayerTeleportEvent.TeleportCause.PLUGIN) {
-            Player player = event.getPlayer();
-            Location from = event.getFrom();
-            Portal portal = portalManager.getPortalAtLocation(from);
-            
-            if (portal != null) {
-                plugin.getLogger().info("Player " + player.getName() + " teleported via portal: " + portal.getName());
-            }
-        }
+        });
     }
 }
\ No newline at end of file
@@ -4,16 +4,18 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
 import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.portals.Portal.DetectionMode;
 import org.hydr4.lilworlds.portals.Portal.PortalType;
+import org.hydr4.lilworlds.portals.PortalMetrics.FailureReason;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -23,19 +25,40 @@ public class PortalManager {
     
     private final LilWorlds plugin;
     private final Map<String, Portal> portals;
-    private final Map<UUID, Long> playerCooldowns;
-    private final File portalsFile;
-    private FileConfiguration portalsConfig;
-    
-    private static final long TELEPORT_COOLDOWN = 3000; // 3 seconds
+    private final PortalIndex portalIndex;
+    private final PortalCooldowns cooldowns;
+    private final PortalStorage storage;
+    private final PortalStore portalStore;
+    private final PortalFrameBuilder frameBuilder;
+    private final ChunkTickets chunkTickets;
+    private final ChunkPreloader chunkPreloader;
+    private int defaultCooldownTicks;
+    private volatile boolean hasEventDrivenPortals;
+    private volatile boolean hasSampledPortals;
+    private volatile List<Portal> entityTransitPortals = Collections.emptyList();
+    private final EntityTransitScanner entityScanner;
+    private final DestinationTickets destinationTickets;
+    private final PortalMetrics metrics;
+    private boolean logTeleports;
     
     public PortalManager(LilWorlds plugin) {
         this.plugin = plugin;
         this.portals = new ConcurrentHashMap<>();
-        this.playerCooldowns = new ConcurrentHashMap<>();
-        this.portalsFile = new File(plugin.getDataFolder(), "portals.yml");
+        this.portalIndex = new PortalIndex();
+        this.cooldowns = new PortalCooldowns(plugin);
+        this.storage = createStorage();
+        this.portalStore = new PortalStore(plugin, storage, () -> new ArrayList<>(portals.values()));
+        this.frameBuilder = new PortalFrameBuilder(plugin);
+        this.chunkTickets = new ChunkTickets(plugin);
+        this.chunkPreloader = new ChunkPreloader(plugin, chunkTickets);
+        this.entityScanner = new EntityTransitScanner(plugin, this);
+        this.destinationTickets = new DestinationTickets(plugin, this, chunkTickets);
+        this.metrics = new PortalMetrics();
         
+        loadCooldownSettings();
         loadPortals();
+        entityScanner.start();
+        destinationTickets.start();
     }
     
     /**
@@ -43,13 +66,15 @@ public class PortalManager {
      */
     public boolean createPortal(String name, Location loc1, Location loc2, String destWorld, 
                                Location destLocation, Material frameMaterial, PortalType type) {
-        if (portals.containsKey(name.toLowerCase())) {
+        if (portals.containsKey(name.toLowerCase()) || storage.isNameReserved(name)) {
             return false;
         }
         
         Portal portal = new Portal(name, loc1, loc2, destWorld, destLocation, frameMaterial, type);
         portals.put(name.toLowerCase(), portal);
-        savePortals();
+        portalIndex.add(portal);
+        refreshPortalModes();
+        portalStore.markDirty();
         
         plugin.getLogger().info("Created portal: " + name + " -> " + destWorld);
         return true;
@@ -61,13 +86,126 @@ public class PortalManager {
     public boolean deletePortal(String name) {
         Portal removed = portals.remove(name.toLowerCase());
         if (removed != null) {
-            savePortals();
+            portalIndex.remove(removed);
+            refreshPortalModes();
+            metrics.remove(name);
+            frameBuilder.cancel(name);
+            portalStore.markDirty();
             plugin.getLogger().info("Deleted portal: " + name);
             return true;
         }
         return false;
     }
     
+    /**
+     * Set the cooldown of a portal in ticks, -1 to use the configured default
+     */
+    public boolean setPortalCooldown(String name, int cooldownTicks) {
+        Portal portal = portals.get(name.toLowerCase());
+        if (portal == null) {
+            return false;
+        }
+        
+        replacePortal(portal, portal.withCooldownTicks(cooldownTicks));
+        return true;
+    }
+    
+    /**
+     * Enable or disable a portal
+     */
+    public boolean setPortalEnabled(String name, boolean enabled) {
+        Portal portal = portals.get(name.toLowerCase());
+        if (portal == null) {
+            return false;
+        }
+        
+        if (portal.isEnabled() != enabled) {
+            replacePortal(portal, portal.withEnabled(enabled));
+        }
+        return true;
+    }
+    
+    /**
+     * Set how players entering a portal are detected
+     */
+    public boolean setPortalDetectionMode(String name, DetectionMode mode) {
+        Portal portal = portals.get(name.toLowerCase());
+        if (portal == null) {
+            return false;
+        }
+        
+        if (portal.getDetectionMode() != mode) {
+            replacePortal(portal, portal.withDetectionMode(mode));
+        }
+        return true;
+    }
+    
+    /**
+     * Replace the entity transit settings of a portal
+     */
+    public boolean setPortalEntityTransit(String name, EntityTransit entityTransit) {
+        Portal portal = portals.get(name.toLowerCase());
+        if (portal == null) {
+            return false;
+        }
+        
+        replacePortal(portal, portal.withEntityTransit(entityTransit));
+        return true;
+    }
+    
+    /**
+     * Swap a portal for an updated copy of itself
+     */
+    private void replacePortal(Portal oldPortal, Portal newPortal) {
+        String key = oldPortal.getName().toLowerCase();
+        if (portals.replace(key, oldPortal, newPortal)) {
+            portalIndex.remove(oldPortal);
+            portalIndex.add(newPortal);
+            refreshPortalModes();
+            portalStore.markDirty();
+        }
+    }
+    
+    /**
+     * Check if any loaded portal is detected from player movement
+     */
+    public boolean hasEventDrivenPortals() {
+        return hasEventDrivenPortals;
+    }
+    
+    /**
+     * Check if any loaded portal is detected by the sampler
+     */
+    public boolean hasSampledPortals() {
+        return hasSampledPortals;
+    }
+    
+    /**
+     * Get the enabled portals that let entities through
+     */
+    public List<Portal> getEntityTransitPortals() {
+        return entityTransitPortals;
+    }
+    
+    private void refreshPortalModes() {
+        boolean eventDriven = false;
+        boolean sampled = false;
+        List<Portal> transit = new ArrayList<>();
+        for (Portal portal : portals.values()) {
+            if (portal.getDetectionMode() == DetectionMode.SAMPLED) {
+                sampled = true;
+            } else {
+                eventDriven = true;
+            }
+            if (portal.isEnabled() && portal.getEntityTransit().isEnabled()) {
+                transit.add(portal);
+            }
+        }
+        hasEventDrivenPortals = eventDriven;
+        hasSampledPortals = sampled;
+        entityTransitPortals = Collections.unmodifiableList(transit);
+    }
+    
     /**
      * Get a portal by name
      */
@@ -93,199 +231,399 @@ public class PortalManager {
      * Find portal at location
      */
     public Portal getPortalAtLocation(Location location) {
-        for (Portal portal : portals.values()) {
-            if (portal.isEnabled() && portal.isInPortal(location)) {
-                return portal;
-            }
-        }
-        return null;
+        return portalIndex.findAt(location, true);
+    }
+    
+    /**
+     * Find portals whose region intersects a box in a world
+     */
+    public List<Portal> getPortalsInArea(World world, BoundingBox area, boolean enabledOnly) {
+        return portalIndex.query(world.getUID(), area, enabledOnly);
     }
     
     /**
      * Teleport player through portal
      */
     public boolean teleportPlayer(Player player, Portal portal) {
+        long start = System.nanoTime();
         if (!portal.isEnabled()) {
+            metrics.recordFailure(portal, FailureReason.DISABLED);
             return false;
         }
         
         // Check cooldown
         UUID playerId = player.getUniqueId();
-        long currentTime = System.currentTimeMillis();
-        if (playerCooldowns.containsKey(playerId)) {
-            long lastTeleport = playerCooldowns.get(playerId);
-            if (currentTime - lastTeleport < TELEPORT_COOLDOWN) {
-                return false;
-            }
+        if (cooldowns.isOnCooldown(playerId)) {
+            metrics.recordFailure(portal, FailureReason.COOLDOWN);
+            return false;
         }
         
         // Get destination world
-        World destWorld = Bukkit.getWorld(portal.getDestinationWorld());
+        World destWorld = portal.getResolvedDestinationWorld();
         if (destWorld == null) {
+            metrics.recordFailure(portal, FailureReason.WORLD_NOT_LOADED);
             plugin.getLogger().warning("Destination world not found for portal: " + portal.getName());
             return false;
         }
         
         // Teleport player
-        Location destLocation = portal.getDestinationLocation().clone();
-        destLocation.setWorld(destWorld);
+        Location destLocation = portal.createDestinationLocation(destWorld);
         
         boolean success = player.teleport(destLocation);
         if (success) {
-            playerCooldowns.put(playerId, currentTime);
-            plugin.getLogger().info("Player " + player.getName() + " used portal: " + portal.getName());
+            cooldowns.apply(playerId, getCooldownTicks(portal));
+            onTeleported(player, portal, start);
+        } else {
+            metrics.recordFailure(portal, FailureReason.REJECTED);
         }
         
         return success;
     }
     
     /**
-     * Create a portal frame
+     * Teleport player through portal once the destination chunk is loaded
+     * The cooldown is applied right away so the portal can't be triggered again while the
+     * chunk loads; it is lifted again if the teleport does not happen.
+     * 
+     * @return A future completed on the main thread with whether the player was teleported
      */
-    public void createPortalFrame(Portal portal) {
-        Location loc1 = portal.getLocation1();
-        Location loc2 = portal.getLocation2();
-        Material frameMaterial = portal.getFrameMaterial();
+    public CompletableFuture<Boolean> teleportPlayerAsync(Player player, Portal portal) {
+        long start = System.nanoTime();
+        if (!portal.isEnabled()) {
+            metrics.recordFailure(portal, FailureReason.DISABLED);
+            return CompletableFuture.completedFuture(false);
+        }
         
-        int minX = Math.min(loc1.getBlockX(), loc2.getBlockX());
-        int maxX = Math.max(loc1.getBlockX(), loc2.getBlockX());
-        int minY = Math.min(loc1.getBlockY(), loc2.getBlockY());
-        int maxY = Math.max(loc1.getBlockY(), loc2.getBlockY());
-        int minZ = Math.min(loc1.getBlockZ(), loc2.getBlockZ());
-        int maxZ = Math.max(loc1.getBlockZ(), loc2.getBlockZ());
+        // Check cooldown
+        UUID playerId = player.getUniqueId();
+        if (cooldowns.isOnCooldown(playerId)) {
+            metrics.recordFailure(portal, FailureReason.COOLDOWN);
+            return CompletableFuture.completedFuture(false);
+        }
         
-        World world = loc1.getWorld();
+        // Get destination world
+        World destWorld = portal.getResolvedDestinationWorld();
+        if (destWorld == null) {
+            metrics.recordFailure(portal, FailureReason.WORLD_NOT_LOADED);
+            plugin.getLogger().warning("Destination world not found for portal: " + portal.getName());
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        cooldowns.apply(playerId, getCooldownTicks(portal));
+        
+        // Read the destination inventory while the chunk loads, so the world change only applies it
+        CompletableFuture<Void> inventoryReady = plugin.getInventoryManager() != null
+            ? plugin.getInventoryManager().prefetch(player, destWorld)
+            : CompletableFuture.completedFuture(null);
         
-        // Create frame
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                for (int z = minZ; z <= maxZ; z++) {
-                    boolean isFrame = (x == minX || x == maxX) || 
-                                     (y == minY || y == maxY) || 
-                                     (z == minZ || z == maxZ);
-                    
-                    if (isFrame) {
-                        world.getBlockAt(x, y, z).setType(frameMaterial);
-                    } else if (portal.getType() == PortalType.NETHER_PORTAL) {
-                        world.getBlockAt(x, y, z).setType(Material.NETHER_PORTAL);
-                    } else if (portal.getType() == PortalType.END_PORTAL) {
-                        world.getBlockAt(x, y, z).setType(Material.END_PORTAL);
-                    } else {
-                        world.getBlockAt(x, y, z).setType(Material.AIR);
-                    }
+        return chunkPreloader.load(destWorld, portal.getDestinationChunkX(), portal.getDestinationChunkZ())
+            .thenCombine(inventoryReady, (chunk, ignored) -> chunk)
+            .thenApply(chunk -> {
+                boolean success = player.isOnline() && player.teleport(portal.createDestinationLocation(destWorld));
+                if (success) {
+                    onTeleported(player, portal, start);
+                } else {
+                    cooldowns.clear(playerId);
+                    metrics.recordFailure(portal, FailureReason.REJECTED);
                 }
-            }
-        }
+                return success;
+            })
+            .exceptionally(e -> {
+                cooldowns.clear(playerId);
+                metrics.recordFailure(portal, FailureReason.CHUNK_LOAD_FAILED);
+                plugin.getLogger().warning("Could not load destination of portal " + portal.getName() + ": " + e.getMessage());
+                return false;
+            });
     }
     
     /**
-     * Remove portal frame
+     * Teleport an entity and everything riding it through a portal once the destination chunk is loaded
+     * 
+     * @return A future completed on the main thread with whether the entity was teleported
      */
-    public void removePortalFrame(Portal portal) {
-        Location loc1 = portal.getLocation1();
-        Location loc2 = portal.getLocation2();
+    public CompletableFuture<Boolean> teleportEntityAsync(Entity entity, Portal portal) {
+        long start = System.nanoTime();
+        if (!portal.isEnabled()) {
+            return CompletableFuture.completedFuture(false);
+        }
         
-        int minX = Math.min(loc1.getBlockX(), loc2.getBlockX());
-        int maxX = Math.max(loc1.getBlockX(), loc2.getBlockX());
-        int minY = Math.min(loc1.getBlockY(), loc2.getBlockY());
-        int maxY = Math.max(loc1.getBlockY(), loc2.getBlockY());
-        int minZ = Math.min(loc1.getBlockZ(), loc2.getBlockZ());
-        int maxZ = Math.max(loc1.getBlockZ(), loc2.getBlockZ());
+        // Riders share the cooldown so a vehicle can't be sent back by its passengers
+        List<UUID> riders = new ArrayList<>();
+        collectRiders(entity, riders);
+        for (UUID rider : riders) {
+            if (cooldowns.isOnCooldown(rider)) {
+                return CompletableFuture.completedFuture(false);
+            }
+        }
         
-        World world = loc1.getWorld();
+        World destWorld = portal.getResolvedDestinationWorld();
+        if (destWorld == null) {
+            metrics.recordFailure(portal, FailureReason.WORLD_NOT_LOADED);
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        int cooldownTicks = getCooldownTicks(portal);
+        for (UUID rider : riders) {
+            cooldowns.apply(rider, cooldownTicks);
+        }
         
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                for (int z = minZ; z <= maxZ; z++) {
-                    world.getBlockAt(x, y, z).setType(Material.AIR);
+        return chunkPreloader.load(destWorld, portal.getDestinationChunkX(), portal.getDestinationChunkZ())
+            .thenApply(chunk -> {
+                boolean success = entity.isValid() && teleportWithPassengers(entity, portal.createDestinationLocation(destWorld));
+                if (success) {
+                    destinationTickets.recordUse(portal);
+                    metrics.recordSuccess(portal, System.nanoTime() - start, true);
+                } else {
+                    riders.forEach(cooldowns::clear);
+                    metrics.recordFailure(portal, FailureReason.REJECTED);
                 }
+                return success;
+            })
+            .exceptionally(e -> {
+                riders.forEach(cooldowns::clear);
+                metrics.recordFailure(portal, FailureReason.CHUNK_LOAD_FAILED);
+                plugin.getLogger().warning("Could not load destination of portal " + portal.getName() + ": " + e.getMessage());
+                return false;
+            });
+    }
+    
+    private void onTeleported(Player player, Portal portal, long start) {
+        destinationTickets.recordUse(portal);
+        metrics.recordSuccess(portal, System.nanoTime() - start, false);
+        if (logTeleports) {
+            plugin.getLogger().info("Player " + player.getName() + " used portal: " + portal.getName());
+        }
+    }
+    
+    private void collectRiders(Entity entity, List<UUID> riders) {
+        riders.add(entity.getUniqueId());
+        for (Entity passenger : entity.getPassengers()) {
+            collectRiders(passenger, riders);
+        }
+    }
+    
+    /**
+     * Teleport an entity, then its passengers, and seat them again
+     * Entities with passengers can't change worlds, so the stack is taken apart first.
+     */
+    private boolean teleportWithPassengers(Entity entity, Location destination) {
+        List<Entity> passengers = entity.getPassengers();
+        for (Entity passenger : passengers) {
+            entity.removePassenger(passenger);
+        }
+        
+        boolean success = entity.teleport(destination);
+        for (Entity passenger : passengers) {
+            if (!success || teleportWithPassengers(passenger, destination)) {
+                entity.addPassenger(passenger);
             }
         }
+        return success;
     }
     
     /**
-     * Load portals from config
+     * Load the portals stored for a newly loaded world and point portals leading to it at it
      */
-    public void loadPortals() {
-        if (!portalsFile.exists()) {
-            try {
-                portalsFile.getParentFile().mkdirs();
-                portalsFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().severe("Could not create portals.yml: " + e.getMessage());
-                return;
+    public void handleWorldLoad(World world) {
+        List<Portal> loaded = storage.loadWorld(world);
+        if (!loaded.isEmpty()) {
+            for (Portal portal : loaded) {
+                portals.put(portal.getName().toLowerCase(), portal);
             }
+            portalIndex.addWorld(world.getUID(), loaded);
+            refreshPortalModes();
+            plugin.getLogger().info("Loaded " + loaded.size() + " portals in world " + world.getName());
         }
         
-        portalsConfig = YamlConfiguration.loadConfiguration(portalsFile);
-        portals.clear();
-        
-        ConfigurationSection portalsSection = portalsConfig.getConfigurationSection("portals");
-        if (portalsSection != null) {
-            for (String portalName : portalsSection.getKeys(false)) {
-                try {
-                    ConfigurationSection portalSection = portalsSection.getConfigurationSection(portalName);
-                    if (portalSection != null) {
-                        Map<String, Object> portalData = new HashMap<>();
-                        for (String key : portalSection.getKeys(true)) {
-                            portalData.put(key, portalSection.get(key));
-                        }
-                        
-                        Portal portal = Portal.deserialize(portalData);
-                        portals.put(portalName.toLowerCase(), portal);
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().warning("Failed to load portal: " + portalName + " - " + e.getMessage());
-                }
+        for (Portal portal : portals.values()) {
+            if (portal.isDestination(world.getName())) {
+                portal.setResolvedDestinationWorld(world);
             }
         }
-        
-        plugin.getLogger().info("Loaded " + portals.size() + " portals");
     }
     
     /**
-     * Save portals to config
+     * Hand the portals of an unloading world back to the storage and drop cached handles to it
      */
-    public void savePortals() {
-        if (portalsConfig == null) {
-            portalsConfig = new YamlConfiguration();
-        }
+    public void handleWorldUnload(World world) {
+        // The unload may still fail after the event, so only release portals once it happened
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (Bukkit.getWorld(world.getUID()) == null) {
+                releaseWorldPortals(world);
+                destinationTickets.forgetWorld(world.getUID());
+                chunkTickets.forgetWorld(world.getUID());
+            }
+        });
         
-        // Clear existing portals
-        portalsConfig.set("portals", null);
+        for (Portal portal : portals.values()) {
+            if (portal.isDestination(world.getName())) {
+                portal.invalidateDestination();
+            }
+        }
+    }
+    
+    private void releaseWorldPortals(World world) {
+        List<Portal> worldPortals = new ArrayList<>();
+        for (Portal portal : portals.values()) {
+            if (world.getUID().equals(portal.getWorldId())) {
+                worldPortals.add(portal);
+            }
+        }
         
-        // Save all portals
-        for (Map.Entry<String, Portal> entry : portals.entrySet()) {
-            String portalName = entry.getKey();
-            Portal portal = entry.getValue();
-            
-            Map<String, Object> portalData = portal.serialize();
-            for (Map.Entry<String, Object> dataEntry : portalData.entrySet()) {
-                portalsConfig.set("portals." + portalName + "." + dataEntry.getKey(), dataEntry.getValue());
+        if (!worldPortals.isEmpty() && storage.unloadWorld(world, worldPortals)) {
+            for (Portal portal : worldPortals) {
+                portals.remove(portal.getName().toLowerCase(), portal);
             }
+            portalIndex.removeWorld(world.getUID());
+            refreshPortalModes();
+        }
+    }
+    
+    /**
+     * Create a portal frame
+     */
+    public void createPortalFrame(Portal portal) {
+        createPortalFrame(portal, null);
+    }
+    
+    /**
+     * Create a portal frame over the next ticks, reporting progress to the sender
+     */
+    public void createPortalFrame(Portal portal, CommandSender sender) {
+        frameBuilder.build(portal, sender);
+    }
+    
+    /**
+     * Remove portal frame
+     */
+    public void removePortalFrame(Portal portal) {
+        removePortalFrame(portal, null);
+    }
+    
+    /**
+     * Remove a portal frame over the next ticks, reporting progress to the sender
+     */
+    public void removePortalFrame(Portal portal, CommandSender sender) {
+        frameBuilder.clear(portal, sender);
+    }
+    
+    /**
+     * Cancel a running frame build or removal
+     */
+    public boolean cancelPortalFrame(String name) {
+        return frameBuilder.cancel(name);
+    }
+    
+    /**
+     * Load portals from the configured storage
+     */
+    public void loadPortals() {
+        portals.clear();
+        for (Portal portal : storage.load()) {
+            portals.put(portal.getName().toLowerCase(), portal);
         }
         
-        try {
-            portalsConfig.save(portalsFile);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save portals.yml: " + e.getMessage());
+        portalIndex.bulkLoad(portals.values());
+        refreshPortalModes();
+        plugin.getLogger().info("Loaded " + portals.size() + " portals");
+    }
+    
+    private PortalStorage createStorage() {
+        File yamlFile = new File(plugin.getDataFolder(), "portals.yml");
+        String type = plugin.getConfig().getString("portals.storage", "yaml");
+        if ("binary".equalsIgnoreCase(type)) {
+            return new BinaryPortalStorage(plugin, new File(plugin.getDataFolder(), "portals.dat"), yamlFile);
         }
+        return new YamlPortalStorage(plugin, yamlFile);
+    }
+    
+    /**
+     * Save portals to config immediately, bypassing the write-behind queue
+     */
+    public void savePortals() {
+        portalStore.saveNow();
+    }
+    
+    /**
+     * Flush pending portal writes and stop the writer thread
+     */
+    public void shutdown() {
+        cooldowns.stop();
+        entityScanner.stop();
+        destinationTickets.stop();
+        chunkPreloader.shutdown();
+        frameBuilder.shutdown();
+        portalStore.close();
     }
     
     /**
      * Reload portals
      */
     public void reload() {
+        loadCooldownSettings();
+        frameBuilder.loadConfiguration();
+        chunkPreloader.loadConfiguration();
+        entityScanner.loadConfiguration();
+        destinationTickets.loadConfiguration();
+        // Edits may still be queued for the writer thread, get them on disk before re-reading
+        portalStore.saveNow();
         loadPortals();
+        destinationTickets.start();
     }
     
     /**
-     * Clean up cooldowns for offline players
+     * Load cooldown and logging settings from config and (re)start the expiry sweep
+     */
+    private void loadCooldownSettings() {
+        double defaultSeconds = plugin.getConfig().getDouble("portals.cooldown.default-seconds", 3.0);
+        this.defaultCooldownTicks = (int) Math.max(0, Math.round(defaultSeconds * 20));
+        
+        long cleanupSeconds = Math.max(1, plugin.getConfig().getLong("portals.cooldown.cleanup-interval-seconds", 60));
+        cooldowns.start(cleanupSeconds * 20);
+        
+        this.logTeleports = plugin.getConfig().getBoolean("portals.log-teleports", false);
+    }
+    
+    /**
+     * Get the usage metrics of every portal
+     */
+    public PortalMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Get the cooldown applied after using a portal, in ticks
+     */
+    public int getCooldownTicks(Portal portal) {
+        return portal.hasCustomCooldown() ? portal.getCooldownTicks() : defaultCooldownTicks;
+    }
+    
+    /**
+     * Get the configured default cooldown, in ticks
+     */
+    public int getDefaultCooldownTicks() {
+        return defaultCooldownTicks;
+    }
+    
+    /**
+     * Put a player on the cooldown of a portal
+     */
+    public void applyCooldown(Player player, Portal portal) {
+        cooldowns.apply(player.getUniqueId(), getCooldownTicks(portal));
+    }
+    
+    /**
+     * Clean up expired cooldowns
      */
     public void cleanupCooldowns() {
-        long currentTime = System.currentTimeMillis();
-        playerCooldowns.entrySet().removeIf(entry -> 
-            currentTime - entry.getValue() > TELEPORT_COOLDOWN * 2);
+        cooldowns.purgeExpired();
+    }
+    
+    /**
+     * Forget the cooldown of a player who left
+     */
+    public void clearCooldown(Player player) {
+        cooldowns.clear(player.getUniqueId());
     }
     
     /**
@@ -305,26 +643,13 @@ public class PortalManager {
      * Check if player is on cooldown
      */
     public boolean isOnCooldown(Player player) {
-        UUID playerId = player.getUniqueId();
-        if (!playerCooldowns.containsKey(playerId)) {
-            return false;
-        }
-        
-        long lastTeleport = playerCooldowns.get(playerId);
-        return System.currentTimeMillis() - lastTeleport < TELEPORT_COOLDOWN;
+        return cooldowns.isOnCooldown(player.getUniqueId());
     }
     
     /**
-     * Get remaining cooldown time
+     * Get remaining cooldown time in milliseconds
      */
     public long getRemainingCooldown(Player player) {
-        UUID playerId = player.getUniqueId();
-        if (!playerCooldowns.containsKey(playerId)) {
-            return 0;
-        }
-        
-        long lastTeleport = playerCooldowns.get(playerId);
-        long remaining = TELEPORT_COOLDOWN - (System.currentTimeMillis() - lastTeleport);
-        return Math.max(0, remaining);
+        return cooldowns.getRemainingTicks(player.getUniqueId()) * 50;
     }
 }
\ No newline at end of file
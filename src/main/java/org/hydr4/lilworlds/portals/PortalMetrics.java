@@ -0,0 +1,191 @@
+package org.hydr4.lilworlds.portals;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-portal usage counters, teleport latency histograms and failure reasons
+ * Recorded on the main thread, safe to read from any thread.
+ */
+public class PortalMetrics {
+    
+    /** Upper bounds of the latency buckets in milliseconds, the last bucket has no bound */
+    private static final long[] LATENCY_BUCKETS_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500};
+    
+    public enum FailureReason {
+        DISABLED,          // The portal is disabled
+        COOLDOWN,          // The player was still on cooldown
+        WORLD_NOT_LOADED,  // The destination world is not loaded
+        CHUNK_LOAD_FAILED, // The destination chunk could not be loaded
+        CANCELLED,         // A plugin cancelled the WorldTeleportEvent
+        REJECTED           // The server refused the teleport or the player left
+    }
+    
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    
+    /**
+     * Record a completed teleport
+     * 
+     * @param latencyNanos Time from the teleport request to arrival, including chunk loading
+     * @param entity Whether a non-player entity went through
+     */
+    public void recordSuccess(Portal portal, long latencyNanos, boolean entity) {
+        Stats portalStats = statsFor(portal);
+        if (entity) {
+            portalStats.entityTeleports.incrementAndGet();
+        } else {
+            portalStats.teleports.incrementAndGet();
+        }
+        portalStats.record(latencyNanos);
+    }
+    
+    /**
+     * Record a teleport that did not happen
+     */
+    public void recordFailure(Portal portal, FailureReason reason) {
+        statsFor(portal).failures.incrementAndGet(reason.ordinal());
+    }
+    
+    /**
+     * Get the metrics of a portal
+     * 
+     * @return A snapshot of the counters, all zero if the portal was never used
+     */
+    public Snapshot getSnapshot(Portal portal) {
+        Stats portalStats = stats.get(portal.getName().toLowerCase());
+        return portalStats != null ? portalStats.snapshot() : Snapshot.EMPTY;
+    }
+    
+    /**
+     * Drop the metrics of a deleted portal
+     */
+    public void remove(String portalName) {
+        stats.remove(portalName.toLowerCase());
+    }
+    
+    private Stats statsFor(Portal portal) {
+        return stats.computeIfAbsent(portal.getName().toLowerCase(), name -> new Stats());
+    }
+    
+    private static class Stats {
+        final AtomicLong teleports = new AtomicLong();
+        final AtomicLong entityTeleports = new AtomicLong();
+        final AtomicLongArray failures = new AtomicLongArray(FailureReason.values().length);
+        final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+        final AtomicLong totalLatencyNanos = new AtomicLong();
+        final AtomicLong maxLatencyNanos = new AtomicLong();
+        
+        void record(long latencyNanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && millis >= LATENCY_BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            latencyBuckets.incrementAndGet(bucket);
+            totalLatencyNanos.addAndGet(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        }
+        
+        Snapshot snapshot() {
+            long[] failureCounts = new long[failures.length()];
+            for (int i = 0; i < failureCounts.length; i++) {
+                failureCounts[i] = failures.get(i);
+            }
+            long[] buckets = new long[latencyBuckets.length()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = latencyBuckets.get(i);
+            }
+            return new Snapshot(teleports.get(), entityTeleports.get(), failureCounts, buckets,
+                totalLatencyNanos.get(), maxLatencyNanos.get());
+        }
+    }
+    
+    /**
+     * Metrics of one portal at a point in time
+     */
+    public static final class Snapshot {
+        
+        static final Snapshot EMPTY = new Snapshot(0, 0, new long[FailureReason.values().length],
+            new long[LATENCY_BUCKETS_MS.length + 1], 0, 0);
+        
+        private final long teleports;
+        private final long entityTeleports;
+        private final long[] failures;
+        private final long[] latencyBuckets;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+        
+        Snapshot(long teleports, long entityTeleports, long[] failures, long[] latencyBuckets,
+                 long totalLatencyNanos, long maxLatencyNanos) {
+            this.teleports = teleports;
+            this.entityTeleports = entityTeleports;
+            this.failures = failures;
+            this.latencyBuckets = latencyBuckets;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+        
+        /** Players teleported through the portal */
+        public long getTeleports() { return teleports; }
+        
+        /** Entities and vehicles teleported through the portal */
+        public long getEntityTeleports() { return entityTeleports; }
+        
+        public long getFailures(FailureReason reason) { return failures[reason.ordinal()]; }
+        
+        public long getTotalFailures() {
+            long total = 0;
+            for (long count : failures) {
+                total += count;
+            }
+            return total;
+        }
+        
+        public double getAverageLatencyMillis() {
+            long count = teleports + entityTeleports;
+            return count == 0 ? 0 : totalLatencyNanos / 1_000_000.0 / count;
+        }
+        
+        public double getMaxLatencyMillis() {
+            return maxLatencyNanos / 1_000_000.0;
+        }
+        
+        /**
+         * Get the upper bound of the latency bucket holding a percentile
+         * 
+         * @param percentile Between 0 and 100
+         * @return The bound in milliseconds, or -1 if it falls in the last, unbounded bucket
+         */
+        public long getLatencyPercentileMillis(double percentile) {
+            long count = teleports + entityTeleports;
+            if (count == 0) {
+                return 0;
+            }
+            
+            long target = (long) Math.ceil(count * Math.max(0, Math.min(100, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+                seen += latencyBuckets[i];
+                if (seen >= target) {
+                    return LATENCY_BUCKETS_MS[i];
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Get the bucket counts, the bucket at index i holds teleports faster than
+         * {@link #getLatencyBucketBounds()}[i] milliseconds, the last one everything slower
+         */
+        public long[] getLatencyBuckets() {
+            return latencyBuckets.clone();
+        }
+        
+        public static long[] getLatencyBucketBounds() {
+            return LATENCY_BUCKETS_MS.clone();
+        }
+    }
+}
\ No newline at end of file
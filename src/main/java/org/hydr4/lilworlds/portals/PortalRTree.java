@@ -0,0 +1,437 @@
+package org.hydr4.lilworlds.portals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * R-tree over the portal regions of a single world
+ * Every node keeps the number of enabled portals below it, so queries for enabled portals
+ * skip disabled subtrees without visiting them. Not thread safe, used from the main thread.
+ */
+public class PortalRTree {
+    
+    private static final int MAX_ENTRIES = 16;
+    private static final int MIN_ENTRIES = 6;
+    
+    private Node root = new Node(true);
+    private int size;
+    
+    /**
+     * Build a tree from a set of portals with Sort-Tile-Recursive packing
+     */
+    public static PortalRTree bulkLoad(Collection<Portal> portals) {
+        PortalRTree tree = new PortalRTree();
+        if (portals.isEmpty()) {
+            return tree;
+        }
+        
+        List<Node> nodes = new ArrayList<>(portals.size());
+        for (Portal portal : portals) {
+            nodes.add(Node.entry(portal));
+        }
+        
+        nodes = pack(nodes, true);
+        while (nodes.size() > 1) {
+            nodes = pack(nodes, false);
+        }
+        
+        tree.root = nodes.get(0);
+        tree.size = portals.size();
+        return tree;
+    }
+    
+    /**
+     * Add a portal
+     */
+    public void insert(Portal portal) {
+        insertEntry(Node.entry(portal));
+        size++;
+    }
+    
+    /**
+     * Remove a portal
+     * 
+     * @return true if the portal was in the tree
+     */
+    public boolean remove(Portal portal) {
+        Node leaf = findLeaf(root, portal);
+        if (leaf == null) {
+            return false;
+        }
+        
+        for (int i = 0; i < leaf.count; i++) {
+            if (leaf.children[i].portal == portal) {
+                leaf.removeChild(i);
+                break;
+            }
+        }
+        size--;
+        condense(leaf);
+        return true;
+    }
+    
+    /**
+     * Get the number of portals in the tree
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Check if the tree holds no portals
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Find a portal containing a point
+     * 
+     * @param enabledOnly Skip disabled portals
+     * @return The first matching portal or null
+     */
+    public Portal findAt(double x, double y, double z, boolean enabledOnly) {
+        return findAt(root, x, y, z, enabledOnly);
+    }
+    
+    /**
+     * Visit every portal whose region intersects a box
+     * 
+     * @param enabledOnly Skip disabled portals
+     */
+    public void query(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                      boolean enabledOnly, Consumer<Portal> consumer) {
+        query(root, minX, minY, minZ, maxX, maxY, maxZ, enabledOnly, consumer);
+    }
+    
+    private static Portal findAt(Node node, double x, double y, double z, boolean enabledOnly) {
+        for (int i = 0; i < node.count; i++) {
+            Node child = node.children[i];
+            if ((enabledOnly && child.enabledCount == 0) || !child.contains(x, y, z)) {
+                continue;
+            }
+            
+            if (child.portal != null) {
+                return child.portal;
+            }
+            Portal found = findAt(child, x, y, z, enabledOnly);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+    
+    private static void query(Node node, double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                              boolean enabledOnly, Consumer<Portal> consumer) {
+        for (int i = 0; i < node.count; i++) {
+            Node child = node.children[i];
+            if ((enabledOnly && child.enabledCount == 0) || !child.intersects(minX, minY, minZ, maxX, maxY, maxZ)) {
+                continue;
+            }
+            
+            if (child.portal != null) {
+                consumer.accept(child.portal);
+            } else {
+                query(child, minX, minY, minZ, maxX, maxY, maxZ, enabledOnly, consumer);
+            }
+        }
+    }
+    
+    private void insertEntry(Node entry) {
+        // Descend to the leaf needing the least enlargement
+        Node node = root;
+        while (!node.leaf) {
+            Node best = null;
+            double bestEnlargement = Double.MAX_VALUE;
+            double bestVolume = Double.MAX_VALUE;
+            for (int i = 0; i < node.count; i++) {
+                Node child = node.children[i];
+                double volume = child.volume();
+                double enlargement = child.volumeWith(entry) - volume;
+                if (enlargement < bestEnlargement || (enlargement == bestEnlargement && volume < bestVolume)) {
+                    best = child;
+                    bestEnlargement = enlargement;
+                    bestVolume = volume;
+                }
+            }
+            node = best;
+        }
+        
+        node.addChild(entry);
+        while (node != null) {
+            if (node.count > MAX_ENTRIES) {
+                split(node);
+            } else {
+                node.recalculate();
+            }
+            node = node.parent;
+        }
+    }
+    
+    private void split(Node node) {
+        Node[] entries = Arrays.copyOf(node.children, node.count);
+        
+        // Quadratic split: start from the two entries that waste the most space together
+        int seedA = 0;
+        int seedB = 1;
+        double worstWaste = -Double.MAX_VALUE;
+        for (int i = 0; i < entries.length; i++) {
+            for (int j = i + 1; j < entries.length; j++) {
+                double waste = entries[i].volumeWith(entries[j]) - entries[i].volume() - entries[j].volume();
+                if (waste > worstWaste) {
+                    worstWaste = waste;
+                    seedA = i;
+                    seedB = j;
+                }
+            }
+        }
+        
+        Node sibling = new Node(node.leaf);
+        node.clearChildren();
+        node.addChild(entries[seedA]);
+        sibling.addChild(entries[seedB]);
+        node.recalculate();
+        sibling.recalculate();
+        
+        int remaining = entries.length - 2;
+        for (int i = 0; i < entries.length; i++) {
+            if (i == seedA || i == seedB) {
+                continue;
+            }
+            
+            Node entry = entries[i];
+            Node target;
+            if (node.count + remaining <= MIN_ENTRIES) {
+                target = node;
+            } else if (sibling.count + remaining <= MIN_ENTRIES) {
+                target = sibling;
+            } else {
+                double growA = node.volumeWith(entry) - node.volume();
+                double growB = sibling.volumeWith(entry) - sibling.volume();
+                target = growA < growB || (growA == growB && node.count <= sibling.count) ? node : sibling;
+            }
+            target.addChild(entry);
+            target.include(entry);
+            remaining--;
+        }
+        
+        node.recalculate();
+        sibling.recalculate();
+        
+        if (node == root) {
+            Node newRoot = new Node(false);
+            newRoot.addChild(node);
+            newRoot.addChild(sibling);
+            newRoot.recalculate();
+            root = newRoot;
+        } else {
+            node.parent.addChild(sibling);
+        }
+    }
+    
+    private void condense(Node leaf) {
+        List<Portal> orphans = new ArrayList<>();
+        
+        Node node = leaf;
+        while (node != root) {
+            Node parent = node.parent;
+            if (node.count < MIN_ENTRIES) {
+                parent.removeChild(parent.indexOf(node));
+                collectPortals(node, orphans);
+            } else {
+                node.recalculate();
+            }
+            node = parent;
+        }
+        root.recalculate();
+        
+        while (!root.leaf && root.count == 1) {
+            root = root.children[0];
+            root.parent = null;
+        }
+        if (!root.leaf && root.count == 0) {
+            root = new Node(true);
+        }
+        
+        for (Portal portal : orphans) {
+            insertEntry(Node.entry(portal));
+        }
+    }
+    
+    private static Node findLeaf(Node node, Portal portal) {
+        for (int i = 0; i < node.count; i++) {
+            Node child = node.children[i];
+            if (child.portal == portal) {
+                return node;
+            }
+            if (child.portal == null && child.covers(portal)) {
+                Node leaf = findLeaf(child, portal);
+                if (leaf != null) {
+                    return leaf;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static void collectPortals(Node node, List<Portal> portals) {
+        for (int i = 0; i < node.count; i++) {
+            Node child = node.children[i];
+            if (child.portal != null) {
+                portals.add(child.portal);
+            } else {
+                collectPortals(child, portals);
+            }
+        }
+    }
+    
+    /**
+     * Group one tree level into parent nodes, tiling by X into slices and by Z inside each slice
+     */
+    private static List<Node> pack(List<Node> entries, boolean leaf) {
+        int nodeCount = (entries.size() + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * MAX_ENTRIES;
+        
+        entries.sort(Comparator.comparingDouble(Node::centerX));
+        
+        List<Node> parents = new ArrayList<>(nodeCount);
+        for (int sliceStart = 0; sliceStart < entries.size(); sliceStart += sliceSize) {
+            List<Node> slice = entries.subList(sliceStart, Math.min(sliceStart + sliceSize, entries.size()));
+            slice.sort(Comparator.comparingDouble(Node::centerZ));
+            
+            for (int start = 0; start < slice.size(); start += MAX_ENTRIES) {
+                Node parent = new Node(leaf);
+                int end = Math.min(start + MAX_ENTRIES, slice.size());
+                for (int i = start; i < end; i++) {
+                    parent.addChild(slice.get(i));
+                }
+                parent.recalculate();
+                parents.add(parent);
+            }
+        }
+        return parents;
+    }
+    
+    /**
+     * A tree node, or a portal entry when {@code portal} is set
+     */
+    private static final class Node {
+        final boolean leaf; // Children are portal entries
+        final Portal portal;
+        Node[] children;
+        int count;
+        Node parent;
+        
+        double minX, minY, minZ;
+        double maxX, maxY, maxZ;
+        int enabledCount;
+        
+        Node(boolean leaf) {
+            this.leaf = leaf;
+            this.portal = null;
+            this.children = new Node[MAX_ENTRIES + 1];
+        }
+        
+        private Node(Portal portal) {
+            this.leaf = false;
+            this.portal = portal;
+            this.minX = portal.getMinX();
+            this.minY = portal.getMinY();
+            this.minZ = portal.getMinZ();
+            this.maxX = portal.getMaxX();
+            this.maxY = portal.getMaxY();
+            this.maxZ = portal.getMaxZ();
+            this.enabledCount = portal.isEnabled() ? 1 : 0;
+        }
+        
+        static Node entry(Portal portal) {
+            return new Node(portal);
+        }
+        
+        void addChild(Node child) {
+            children[count++] = child;
+            child.parent = this;
+        }
+        
+        void removeChild(int index) {
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            children[--count] = null;
+        }
+        
+        void clearChildren() {
+            Arrays.fill(children, 0, count, null);
+            count = 0;
+        }
+        
+        int indexOf(Node child) {
+            for (int i = 0; i < count; i++) {
+                if (children[i] == child) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        void recalculate() {
+            minX = minY = minZ = Double.MAX_VALUE;
+            maxX = maxY = maxZ = -Double.MAX_VALUE;
+            enabledCount = 0;
+            for (int i = 0; i < count; i++) {
+                include(children[i]);
+            }
+        }
+        
+        void include(Node other) {
+            minX = Math.min(minX, other.minX);
+            minY = Math.min(minY, other.minY);
+            minZ = Math.min(minZ, other.minZ);
+            maxX = Math.max(maxX, other.maxX);
+            maxY = Math.max(maxY, other.maxY);
+            maxZ = Math.max(maxZ, other.maxZ);
+            enabledCount += other.enabledCount;
+        }
+        
+        boolean contains(double x, double y, double z) {
+            return x >= minX && x <= maxX
+                && y >= minY && y <= maxY
+                && z >= minZ && z <= maxZ;
+        }
+        
+        boolean intersects(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            return this.minX <= maxX && this.maxX >= minX
+                && this.minY <= maxY && this.maxY >= minY
+                && this.minZ <= maxZ && this.maxZ >= minZ;
+        }
+        
+        boolean covers(Portal portal) {
+            return minX <= portal.getMinX() && maxX >= portal.getMaxX()
+                && minY <= portal.getMinY() && maxY >= portal.getMaxY()
+                && minZ <= portal.getMinZ() && maxZ >= portal.getMaxZ();
+        }
+        
+        // Block regions can be flat, so every axis counts at least one block
+        double volume() {
+            return (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        }
+        
+        double volumeWith(Node other) {
+            return (Math.max(maxX, other.maxX) - Math.min(minX, other.minX) + 1)
+                * (Math.max(maxY, other.maxY) - Math.min(minY, other.minY) + 1)
+                * (Math.max(maxZ, other.maxZ) - Math.min(minZ, other.minZ) + 1);
+        }
+        
+        double centerX() {
+            return (minX + maxX) / 2;
+        }
+        
+        double centerZ() {
+            return (minZ + maxZ) / 2;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.portals.Portal.DetectionMode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Detects players entering sampled portals by checking positions in round-robin batches,
+ * every online player is checked once per sample interval with a cap on checks per tick
+ */
+public class PortalSampler {
+    
+    private final LilWorlds plugin;
+    private final PortalManager portalManager;
+    private final PortalListener listener;
+    private final Map<UUID, PlayerPortalState> playerStates = new HashMap<>();
+    
+    private List<Player> cycle = Collections.emptyList();
+    private int cursor;
+    private int batchSize;
+    private BukkitTask task;
+    
+    public PortalSampler(LilWorlds plugin, PortalManager portalManager, PortalListener listener) {
+        this.plugin = plugin;
+        this.portalManager = portalManager;
+        this.listener = listener;
+    }
+    
+    /**
+     * Start the sampling task
+     */
+    public void start() {
+        stop();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+    
+    /**
+     * Stop the sampling task
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        cycle = Collections.emptyList();
+        cursor = 0;
+    }
+    
+    /**
+     * Drop the state of a player who left
+     */
+    public void forget(UUID playerId) {
+        playerStates.remove(playerId);
+    }
+    
+    private void tick() {
+        if (!portalManager.hasSampledPortals()) {
+            return;
+        }
+        
+        if (cursor >= cycle.size()) {
+            startCycle();
+        }
+        
+        int end = Math.min(cycle.size(), cursor + batchSize);
+        for (; cursor < end; cursor++) {
+            Player player = cycle.get(cursor);
+            if (!player.isOnline()) {
+                continue;
+            }
+            
+            PlayerPortalState state = playerStates.computeIfAbsent(player.getUniqueId(), id -> new PlayerPortalState());
+            listener.detect(player, player.getLocation(), state, DetectionMode.SAMPLED);
+        }
+    }
+    
+    private void startCycle() {
+        // Settings are read per cycle so a config reload applies without restarting the task
+        int intervalTicks = Math.max(1, plugin.getConfig().getInt("portals.detection.sample-interval-ticks", 5));
+        int maxChecksPerTick = Math.max(1, plugin.getConfig().getInt("portals.detection.max-checks-per-tick", 50));
+        
+        cycle = new ArrayList<>(Bukkit.getOnlinePlayers());
+        cursor = 0;
+        batchSize = Math.min(maxChecksPerTick, Math.max(1, (cycle.size() + intervalTicks - 1) / intervalTicks));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.World;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Backend that persists portals
+ */
+public interface PortalStorage {
+    
+    /**
+     * Read the portals of every loaded world
+     */
+    List<Portal> load();
+    
+    /**
+     * Read the portals of a world that just loaded
+     * 
+     * @return Portals not returned by an earlier load, usually empty for eager storages
+     */
+    List<Portal> loadWorld(World world);
+    
+    /**
+     * Take over the portals of a world that is unloading
+     * 
+     * @return true if the storage keeps them, so they can be dropped from memory
+     */
+    boolean unloadWorld(World world, Collection<Portal> portals);
+    
+    /**
+     * Check if a portal name is used by a portal that is not loaded
+     */
+    boolean isNameReserved(String name);
+    
+    /**
+     * Capture everything needed to save the given portals, called on the main thread
+     * 
+     * @return The write to run on the writer thread, or null to skip saving
+     */
+    PendingWrite prepareWrite(List<Portal> portals);
+    
+    /**
+     * A save captured on the main thread, safe to run on any thread
+     */
+    interface PendingWrite {
+        void write() throws IOException;
+    }
+}
\ No newline at end of file
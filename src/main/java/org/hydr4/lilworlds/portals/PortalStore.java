@@ -0,0 +1,125 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Bukkit;
+import org.hydr4.lilworlds.LilWorlds;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Write-behind persistence for portals
+ * Mutations only mark the store dirty; the storage is written off the main thread from an
+ * immutable snapshot, coalescing all edits made in the same tick.
+ */
+public class PortalStore {
+    
+    private final LilWorlds plugin;
+    private final PortalStorage storage;
+    private final Supplier<List<Portal>> snapshotSupplier;
+    private final ExecutorService writer;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicReference<Snapshot> pendingSnapshot = new AtomicReference<>();
+    private final AtomicLong snapshotSequence = new AtomicLong();
+    private long lastWrittenSequence = -1;
+    
+    public PortalStore(LilWorlds plugin, PortalStorage storage, Supplier<List<Portal>> snapshotSupplier) {
+        this.plugin = plugin;
+        this.storage = storage;
+        this.snapshotSupplier = snapshotSupplier;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LilWorlds-PortalStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Mark the portal set as changed; a write is scheduled for the end of the current tick
+     */
+    public void markDirty() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTask(plugin, this::flush);
+        }
+    }
+    
+    /**
+     * Take a snapshot on the main thread and hand it to the writer thread
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        
+        // Only queue a write if none is waiting, the queued one will pick up this newer snapshot
+        if (pendingSnapshot.getAndSet(takeSnapshot()) == null) {
+            writer.execute(() -> {
+                Snapshot snapshot = pendingSnapshot.getAndSet(null);
+                if (snapshot != null) {
+                    write(snapshot);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Write the current portal set synchronously on the calling thread
+     */
+    public void saveNow() {
+        pendingSnapshot.set(null);
+        write(takeSnapshot());
+    }
+    
+    /**
+     * Finish pending writes, then save the final state synchronously
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for pending portal writes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        flushScheduled.set(false);
+        saveNow();
+    }
+    
+    private Snapshot takeSnapshot() {
+        return new Snapshot(snapshotSequence.incrementAndGet(), storage.prepareWrite(snapshotSupplier.get()));
+    }
+    
+    private synchronized void write(Snapshot snapshot) {
+        // A newer snapshot already reached the disk, e.g. through saveNow()
+        if (snapshot.sequence <= lastWrittenSequence || snapshot.write == null) {
+            return;
+        }
+        
+        try {
+            snapshot.write.write();
+            lastWrittenSequence = snapshot.sequence;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save portals: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // E.g. a portal of a world that unloaded meanwhile, later saves must still go through
+            plugin.getLogger().log(Level.SEVERE, "Could not save portals", e);
+        }
+    }
+    
+    private static class Snapshot {
+        final long sequence;
+        final PortalStorage.PendingWrite write;
+        
+        Snapshot(long sequence, PortalStorage.PendingWrite write) {
+            this.sequence = sequence;
+            this.write = write;
+        }
+    }
+}
\ No newline at end of file
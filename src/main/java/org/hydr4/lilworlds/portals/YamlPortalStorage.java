@@ -0,0 +1,107 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.hydr4.lilworlds.LilWorlds;
+import org.hydr4.lilworlds.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores every portal in portals.yml, all portals are loaded at startup
+ */
+public class YamlPortalStorage implements PortalStorage {
+    
+    private final LilWorlds plugin;
+    private final File portalsFile;
+    
+    public YamlPortalStorage(LilWorlds plugin, File portalsFile) {
+        this.plugin = plugin;
+        this.portalsFile = portalsFile;
+    }
+    
+    @Override
+    public List<Portal> load() {
+        List<Portal> loaded = new ArrayList<>();
+        if (!portalsFile.exists()) {
+            try {
+                portalsFile.getParentFile().mkdirs();
+                portalsFile.createNewFile();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not create portals.yml: " + e.getMessage());
+            }
+            return loaded;
+        }
+        
+        FileConfiguration portalsConfig = YamlConfiguration.loadConfiguration(portalsFile);
+        ConfigurationSection portalsSection = portalsConfig.getConfigurationSection("portals");
+        if (portalsSection != null) {
+            for (String portalName : portalsSection.getKeys(false)) {
+                try {
+                    ConfigurationSection portalSection = portalsSection.getConfigurationSection(portalName);
+                    if (portalSection != null) {
+                        loaded.add(Portal.deserialize(toMap(portalSection)));
+                    }
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Failed to load portal: " + portalName + " - " + e.getMessage());
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    @Override
+    public List<Portal> loadWorld(World world) {
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public boolean unloadWorld(World world, Collection<Portal> portals) {
+        return false; // Portals stay in memory so the next save still writes them
+    }
+    
+    @Override
+    public boolean isNameReserved(String name) {
+        return false;
+    }
+    
+    @Override
+    public PendingWrite prepareWrite(List<Portal> portals) {
+        return () -> write(portals);
+    }
+    
+    private void write(List<Portal> portals) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        
+        for (Portal portal : portals) {
+            String path = "portals." + portal.getName().toLowerCase();
+            for (Map.Entry<String, Object> dataEntry : portal.serialize().entrySet()) {
+                config.set(path + "." + dataEntry.getKey(), dataEntry.getValue());
+            }
+        }
+        
+        FileUtils.writeAtomically(portalsFile, config.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Convert a section back into the nested maps produced by serialize
+     */
+    static Map<String, Object> toMap(ConfigurationSection section) {
+        Map<String, Object> map = new HashMap<>();
+        for (String key : section.getKeys(false)) {
+            Object value = section.get(key);
+            map.put(key, value instanceof ConfigurationSection ? toMap((ConfigurationSection) value) : value);
+        }
+        return map;
+    }
+}
\ No newline at end of file
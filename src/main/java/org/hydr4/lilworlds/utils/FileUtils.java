@@ -0,0 +1,47 @@
+package org.hydr4.lilworlds.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File utilities for crash-safe writes
+ */
+public class FileUtils {
+    
+    /**
+     * Replace a file's contents atomically by writing a temp file next to it and renaming it into place
+     * 
+     * @param target The file to replace
+     * @param data The new file contents
+     * @throws IOException if the temp file could not be written or moved
+     */
+    public static void writeAtomically(File target, byte[] data) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        
+        // A unique temp file, two threads writing the same target must not share one
+        File tempFile = Files.createTempFile(parent.toPath(), target.getName() + ".", ".tmp").toFile();
+        try {
+            try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                out.write(data);
+                out.getFD().sync();
+            }
+            
+            try {
+                Files.move(tempFile.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Some file systems cannot rename atomically, a plain replace is the best we can do there
+                Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+}
\ No newline at end of file
@@ -1,8 +1,10 @@
 package org.hydr4.lilworlds.utils;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
+import org.bukkit.inventory.ItemStack;
 import org.hydr4.lilworlds.LilWorlds;
 
 import java.lang.reflect.Method;
@@ -16,6 +18,8 @@ public class ServerUtils {
     private static Boolean isPaper = null;
     private static Boolean isFolia = null;
     private static Method paperAsyncWorldCreation = null;
+    private static Method paperGetChunkAtAsync = null;
+    private static boolean paperChunkLookupFailed = false;
     
     /**
      * Check if the server is running Paper
@@ -153,6 +157,69 @@ public class ServerUtils {
         }
     }
     
+    /**
+     * Load a chunk asynchronously using Paper's World#getChunkAtAsync
+     * The returned future completes on the main thread once the chunk is loaded or generated.
+     * 
+     * @return The pending chunk, or null if the server has no async chunk API
+     */
+    public static CompletableFuture<Chunk> getChunkAtAsync(World world, int chunkX, int chunkZ) {
+        if (!isPaper() || paperChunkLookupFailed) {
+            return null;
+        }
+        
+        try {
+            if (paperGetChunkAtAsync == null) {
+                paperGetChunkAtAsync = World.class.getMethod("getChunkAtAsync", int.class, int.class);
+            }
+            
+            @SuppressWarnings("unchecked")
+            CompletableFuture<Chunk> future = (CompletableFuture<Chunk>) paperGetChunkAtAsync.invoke(world, chunkX, chunkZ);
+            return future;
+        } catch (Exception e) {
+            paperChunkLookupFailed = true;
+            LoggerUtils.debug("Paper async chunk loading not available: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Check if Paper's ItemStack#serializeAsBytes and ItemStack#deserializeBytes are available
+     */
+    public static boolean hasItemBytes() {
+        return isPaper() && PaperItemBytes.SERIALIZE != null;
+    }
+    
+    /**
+     * Serialize an item with Paper's compact NBT based format
+     * 
+     * @return The item bytes, or null if the server has no such API
+     */
+    public static byte[] serializeItemAsBytes(ItemStack item) {
+        if (!hasItemBytes()) {
+            return null;
+        }
+        
+        try {
+            return (byte[]) PaperItemBytes.SERIALIZE.invoke(item);
+        } catch (Exception e) {
+            LoggerUtils.debug("Paper item serialization failed: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Read an item written by serializeItemAsBytes
+     * 
+     * @return The item, or null if the server has no such API
+     */
+    public static ItemStack deserializeItemBytes(byte[] data) throws Exception {
+        if (!hasItemBytes()) {
+            return null;
+        }
+        return (ItemStack) PaperItemBytes.DESERIALIZE.invoke(null, (Object) data);
+    }
+    
     /**
      * Apply Paper-specific optimizations to a world
      */
@@ -228,4 +295,28 @@ public class ServerUtils {
             totalMemory / 1024 / 1024, 
             maxMemory / 1024 / 1024);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Paper's item byte methods, looked up together when first used
+     * Class initialization publishes both to every thread, the I/O threads read them too.
+     */
+    private static final class PaperItemBytes {
+        static final Method SERIALIZE;
+        static final Method DESERIALIZE;
+        
+        static {
+            Method serialize = null;
+            Method deserialize = null;
+            try {
+                serialize = ItemStack.class.getMethod("serializeAsBytes");
+                deserialize = ItemStack.class.getMethod("deserializeBytes", byte[].class);
+            } catch (NoSuchMethodException e) {
+                serialize = null;
+                deserialize = null;
+                LoggerUtils.debug("Paper item serialization not available: " + e.getMessage());
+            }
+            SERIALIZE = serialize;
+            DESERIALIZE = deserialize;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.hydr4.lilworlds.managers;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogInventoryStorageTest {
+    
+    private static final long SEGMENT_SIZE = 1024 * 1024;
+    
+    private static final InventoryKey A = new InventoryKey(new UUID(1, 1), "survival");
+    private static final InventoryKey B = new InventoryKey(new UUID(2, 2), "survival");
+    private static final InventoryKey C = new InventoryKey(new UUID(1, 1), "creative");
+    
+    @TempDir
+    File folder;
+    
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+    
+    @Test
+    void recoversFromCheckpointAndReplaysTail() throws IOException {
+        File log = new File(folder, "log");
+        LogInventoryStorage storage = open(log);
+        write(storage, A, bytes("a1"));
+        write(storage, B, bytes("b1"));
+        storage.writeLastGroup(A.playerId, "survival");
+        storage.close();
+        assertTrue(new File(log, "index.dat").exists());
+        
+        // Appended after the checkpoint, then the server dies without closing
+        storage = open(log);
+        write(storage, A, bytes("a2"));
+        storage.deleteAll(Collections.singletonList(B));
+        write(storage, C, bytes("c1"));
+        File crashed = copy(log, new File(folder, "crashed"));
+        storage.close();
+        
+        LogInventoryStorage recovered = open(crashed);
+        assertArrayEquals(bytes("a2"), recovered.read(A));
+        assertNull(recovered.read(B));
+        assertArrayEquals(bytes("c1"), recovered.read(C));
+        assertEquals("survival", recovered.readLastGroup(A.playerId));
+        assertEquals(new HashSet<>(Arrays.asList(A, C)), new HashSet<>(recovered.keys()));
+        
+        // Appends continue after the replayed tail
+        write(recovered, B, bytes("b2"));
+        recovered.close();
+        LogInventoryStorage reopened = open(crashed);
+        assertArrayEquals(bytes("a2"), reopened.read(A));
+        assertArrayEquals(bytes("b2"), reopened.read(B));
+        reopened.close();
+    }
+    
+    @Test
+    void truncatesTornTail() throws IOException {
+        File log = new File(folder, "log");
+        LogInventoryStorage storage = open(log);
+        write(storage, A, bytes("a1"));
+        write(storage, B, bytes("b1"));
+        File segment = onlySegment(log);
+        long intact = segment.length();
+        write(storage, C, bytes("c1"));
+        File crashed = copy(log, new File(folder, "crashed"));
+        storage.close();
+        
+        // Cut the last record short, as a crash in the middle of the write would
+        File crashedSegment = new File(crashed, segment.getName());
+        try (RandomAccessFile file = new RandomAccessFile(crashedSegment, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+        
+        LogInventoryStorage recovered = open(crashed);
+        assertArrayEquals(bytes("a1"), recovered.read(A));
+        assertArrayEquals(bytes("b1"), recovered.read(B));
+        assertNull(recovered.read(C));
+        assertEquals(intact, crashedSegment.length());
+        
+        write(recovered, C, bytes("c2"));
+        recovered.close();
+        LogInventoryStorage reopened = open(crashed);
+        assertArrayEquals(bytes("b1"), reopened.read(B));
+        assertArrayEquals(bytes("c2"), reopened.read(C));
+        reopened.close();
+    }
+    
+    @Test
+    void compactionMovesLiveRecords() throws IOException {
+        File log = new File(folder, "log");
+        LogInventoryStorage storage = open(log);
+        write(storage, A, filled(1, 400 * 1024));
+        write(storage, B, bytes("b1"));
+        write(storage, A, filled(2, 400 * 1024));
+        // Does not fit, starts a second segment and leaves only B live in the first
+        write(storage, A, filled(3, 400 * 1024));
+        File first = new File(log, "segment-00000001.log");
+        assertEquals(2, segments(log).length);
+        
+        storage.compact();
+        assertFalse(first.exists());
+        assertArrayEquals(filled(3, 400 * 1024), storage.read(A));
+        assertArrayEquals(bytes("b1"), storage.read(B));
+        storage.close();
+        
+        LogInventoryStorage reopened = open(log);
+        assertArrayEquals(filled(3, 400 * 1024), reopened.read(A));
+        assertArrayEquals(bytes("b1"), reopened.read(B));
+        reopened.close();
+    }
+    
+    private static LogInventoryStorage open(File folder) throws IOException {
+        return new LogInventoryStorage(folder, SEGMENT_SIZE, 0.5, 60);
+    }
+    
+    private static void write(LogInventoryStorage storage, InventoryKey key, byte[] data) throws IOException {
+        Map<InventoryKey, byte[]> records = new HashMap<>();
+        records.put(key, data);
+        storage.writeAll(records);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] filled(int value, int length) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+    
+    private static File[] segments(File folder) {
+        return folder.listFiles((dir, name) -> name.startsWith("segment-"));
+    }
+    
+    private static File onlySegment(File folder) {
+        File[] segments = segments(folder);
+        assertEquals(1, segments.length);
+        return segments[0];
+    }
+    
+    /**
+     * Copy the files of a storage as they are, what a crash at this point would leave behind
+     */
+    private static File copy(File from, File to) throws IOException {
+        assertTrue(to.mkdirs());
+        for (File file : from.listFiles()) {
+            Files.copy(file.toPath(), new File(to, file.getName()).toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        return to;
+    }
+}
\ No newline at end of file
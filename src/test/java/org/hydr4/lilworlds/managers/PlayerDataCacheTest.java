@@ -0,0 +1,46 @@
+package org.hydr4.lilworlds.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PlayerDataCacheTest {
+    
+    private static final UUID PLAYER = new UUID(1, 1);
+    
+    @Test
+    void readIsCachedWhenNothingChanged() {
+        PlayerDataCache cache = new PlayerDataCache((playerId, groupName, data) -> true);
+        PlayerData data = PlayerData.createDefault();
+        
+        Object read = cache.startRead(PLAYER, "survival");
+        cache.putRead(PLAYER, "survival", read, data);
+        assertSame(data, cache.get(PLAYER, "survival"));
+    }
+    
+    @Test
+    void readOlderThanASaveIsDropped() {
+        PlayerDataCache cache = new PlayerDataCache((playerId, groupName, data) -> true);
+        
+        // The player quits while the read is running, saving and dropping the entry
+        Object read = cache.startRead(PLAYER, "survival");
+        cache.put(PLAYER, "survival", PlayerData.createDefault(), false);
+        cache.remove(PLAYER, "survival");
+        cache.putRead(PLAYER, "survival", read, PlayerData.createDefault());
+        assertFalse(cache.contains(PLAYER, "survival"));
+    }
+    
+    @Test
+    void readNeverReplacesAnEntry() {
+        PlayerDataCache cache = new PlayerDataCache((playerId, groupName, data) -> true);
+        PlayerData saved = PlayerData.createDefault();
+        
+        cache.put(PLAYER, "survival", saved, false);
+        Object read = cache.startRead(PLAYER, "survival");
+        cache.putRead(PLAYER, "survival", read, PlayerData.createDefault());
+        assertSame(saved, cache.get(PLAYER, "survival"));
+    }
+}
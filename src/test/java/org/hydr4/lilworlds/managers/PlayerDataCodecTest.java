@@ -0,0 +1,211 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.GameMode;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerDataCodecTest {
+    
+    @TempDir
+    File folder;
+    
+    private FileInventoryStorage storage;
+    
+    @BeforeAll
+    static void installServer() {
+        TestServer.install();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        storage = new FileInventoryStorage(folder);
+    }
+    
+    @Test
+    void fullRecordRoundTrip() throws IOException {
+        PlayerData data = sample();
+        for (boolean compress : new boolean[] {false, true}) {
+            byte[] bytes = PlayerDataCodec.encode(data, 0, compress, null);
+            assertSameData(data, PlayerDataCodec.decode(bytes, null, newStore(false)));
+        }
+    }
+    
+    @Test
+    void identicalInlineItemsDecodeToOneInstance() throws IOException {
+        PlayerData data = sample();
+        data.inventory[8] = new TestItem("bread", 16);
+        
+        PlayerData decoded = PlayerDataCodec.decode(PlayerDataCodec.encode(data, 0, false, null), null, newStore(false));
+        assertEquals(data.inventory[0], decoded.inventory[8]);
+        assertSame(decoded.inventory[0], decoded.inventory[8]);
+    }
+    
+    @Test
+    void rejectsOtherData() {
+        assertThrows(IOException.class, () -> PlayerDataCodec.decode(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, null, newStore(false)));
+    }
+    
+    @Test
+    void deltaRoundTrip() throws IOException {
+        PlayerData base = sample();
+        byte[] full = PlayerDataCodec.encode(base, 7, true, null);
+        
+        PlayerData data = sample();
+        data.inventory[0] = null;
+        data.inventory[20] = new TestItem("diamond", 3);
+        data.armorContents[3] = new TestItem("golden helmet", 1);
+        data.health = 4.5;
+        data.level = 31;
+        assertEquals(3, PlayerDataCodec.countChangedSlots(data, base));
+        
+        byte[] delta = PlayerDataCodec.encodeDelta(data, base, 7, true, null);
+        assertSameData(data, PlayerDataCodec.decode(full, delta, newStore(false)));
+    }
+    
+    @Test
+    void deltaOfAnotherSnapshotIsIgnored() throws IOException {
+        PlayerData base = sample();
+        byte[] full = PlayerDataCodec.encode(base, 8, false, null);
+        
+        PlayerData data = sample();
+        data.inventory[0] = null;
+        data.health = 1.0;
+        byte[] delta = PlayerDataCodec.encodeDelta(data, base, 7, false, null);
+        
+        assertSameData(base, PlayerDataCodec.decode(full, delta, newStore(false)));
+    }
+    
+    @Test
+    void deltaNeedsMatchingOptionalFields() {
+        PlayerData base = sample();
+        PlayerData data = sample();
+        data.location = null;
+        assertEquals(-1, PlayerDataCodec.countChangedSlots(data, base));
+        
+        data = sample();
+        data.enderChest = new ItemStack[27];
+        assertEquals(-1, PlayerDataCodec.countChangedSlots(data, base));
+    }
+    
+    @Test
+    void blobRoundTrip() throws IOException {
+        ItemBlobStore writer = newStore(true);
+        PlayerData first = sample();
+        PlayerData second = sample();
+        second.inventory[0] = null;
+        second.inventory[5] = new TestItem("sword", 1);
+        
+        ItemBlobStore.Batch batch = writer.newBatch();
+        byte[] firstBytes = PlayerDataCodec.encode(first, 0, false, batch);
+        byte[] secondBytes = PlayerDataCodec.encode(second, 0, false, batch);
+        // Bread, sword and helmet, each stored once for both records
+        assertEquals(3, batch.getBlobs().size());
+        storage.writeAll(batch.getBlobs());
+        writer.written(batch);
+        
+        ItemBlobStore.Batch next = writer.newBatch();
+        PlayerDataCodec.encode(second, 0, false, next);
+        assertTrue(next.getBlobs().isEmpty());
+        
+        Set<String> hashes = new HashSet<>();
+        PlayerDataCodec.collectBlobHashes(firstBytes, hashes);
+        PlayerDataCodec.collectBlobHashes(secondBytes, hashes);
+        Set<String> stored = new HashSet<>();
+        for (InventoryKey key : batch.getBlobs().keySet()) {
+            stored.add(key.groupName);
+        }
+        assertEquals(stored, hashes);
+        
+        // A fresh store has nothing interned, every item comes from the stored blobs
+        ItemBlobStore reader = newStore(false);
+        PlayerData firstDecoded = PlayerDataCodec.decode(firstBytes, null, reader);
+        PlayerData secondDecoded = PlayerDataCodec.decode(secondBytes, null, reader);
+        assertSameData(first, firstDecoded);
+        assertSameData(second, secondDecoded);
+        assertSame(firstDecoded.armorContents[3], secondDecoded.armorContents[3]);
+    }
+    
+    @Test
+    void missingBlobIsSkipped() throws IOException {
+        PlayerData data = sample();
+        ItemBlobStore writer = newStore(true);
+        byte[] bytes = PlayerDataCodec.encode(data, 0, false, writer.newBatch());
+        
+        PlayerData decoded = PlayerDataCodec.decode(bytes, null, newStore(false));
+        assertNull(decoded.inventory[0]);
+        assertEquals(data.health, decoded.health);
+    }
+    
+    private ItemBlobStore newStore(boolean enabled) {
+        ItemBlobStore blobs = new ItemBlobStore(storage);
+        blobs.configure(enabled, 0);
+        blobs.skipSweep();
+        return blobs;
+    }
+    
+    private static PlayerData sample() {
+        PlayerData data = PlayerData.createDefault();
+        data.inventory[0] = new TestItem("bread", 16);
+        data.inventory[1] = new TestItem("sword", 1);
+        data.armorContents[3] = new TestItem("helmet", 1);
+        data.health = 17.5;
+        data.maxHealth = 24.0;
+        data.foodLevel = 12;
+        data.saturation = 2.5f;
+        data.exhaustion = 0.75f;
+        data.exp = 0.4f;
+        data.level = 30;
+        data.totalExperience = 1395;
+        data.gameMode = GameMode.ADVENTURE;
+        data.allowFlight = true;
+        data.flying = true;
+        data.flySpeed = 0.15f;
+        data.walkSpeed = 0.25f;
+        data.location = new PlayerData.SavedLocation("world_nether", 10.5, 64.0, -3.25, 90.0f, -15.0f);
+        return data;
+    }
+    
+    private static void assertSameData(PlayerData expected, PlayerData actual) {
+        assertArrayEquals(expected.inventory, actual.inventory);
+        assertArrayEquals(expected.armorContents, actual.armorContents);
+        assertArrayEquals(expected.extraContents, actual.extraContents);
+        assertArrayEquals(expected.enderChest, actual.enderChest);
+        assertEquals(expected.health, actual.health);
+        assertEquals(expected.maxHealth, actual.maxHealth);
+        assertEquals(expected.foodLevel, actual.foodLevel);
+        assertEquals(expected.saturation, actual.saturation);
+        assertEquals(expected.exhaustion, actual.exhaustion);
+        assertEquals(expected.exp, actual.exp);
+        assertEquals(expected.level, actual.level);
+        assertEquals(expected.totalExperience, actual.totalExperience);
+        assertEquals(expected.gameMode, actual.gameMode);
+        assertEquals(expected.allowFlight, actual.allowFlight);
+        assertEquals(expected.flying, actual.flying);
+        assertEquals(expected.flySpeed, actual.flySpeed);
+        assertEquals(expected.walkSpeed, actual.walkSpeed);
+        assertEquals(expected.potionEffects.length, actual.potionEffects.length);
+        assertNotNull(actual.location);
+        assertEquals(expected.location.world, actual.location.world);
+        assertEquals(expected.location.x, actual.location.x);
+        assertEquals(expected.location.y, actual.location.y);
+        assertEquals(expected.location.z, actual.location.z);
+        assertEquals(expected.location.yaw, actual.location.yaw);
+        assertEquals(expected.location.pitch, actual.location.pitch);
+    }
+}
\ No newline at end of file
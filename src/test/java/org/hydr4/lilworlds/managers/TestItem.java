@@ -0,0 +1,56 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Item that serializes and compares without a server, a plain ItemStack needs one for its meta
+ */
+public class TestItem extends ItemStack {
+    
+    static {
+        ConfigurationSerialization.registerClass(TestItem.class);
+    }
+    
+    private final String name;
+    
+    public TestItem(String name, int amount) {
+        super(Material.STONE, amount);
+        this.name = name;
+    }
+    
+    @Override
+    public Map<String, Object> serialize() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("amount", getAmount());
+        return map;
+    }
+    
+    public static TestItem deserialize(Map<String, Object> map) {
+        return new TestItem((String) map.get("name"), (Integer) map.get("amount"));
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TestItem)) return false;
+        TestItem other = (TestItem) o;
+        return name.equals(other.name) && getAmount() == other.getAmount();
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, getAmount());
+    }
+    
+    @Override
+    public String toString() {
+        return "TestItem{" + name + " x" + getAmount() + "}";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package org.hydr4.lilworlds.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.ConsoleCommandSender;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * Just enough of a server for the code under test to log
+ */
+final class TestServer {
+    
+    private static final Logger LOGGER = Logger.getLogger("LilWorlds-Test");
+    
+    private TestServer() {
+    }
+    
+    static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        
+        ConsoleCommandSender console = proxy(ConsoleCommandSender.class, (method, args) -> {
+            if (method.getName().equals("sendMessage") && args.length == 1 && args[0] instanceof String) {
+                LOGGER.info((String) args[0]);
+            }
+            return null;
+        });
+        Server server = proxy(Server.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getLogger":
+                    return LOGGER;
+                case "getConsoleSender":
+                    return console;
+                case "getName":
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "test";
+                default:
+                    return null;
+            }
+        });
+        Bukkit.setServer(server);
+    }
+    
+    private interface Handler {
+        Object handle(Method method, Object[] args);
+    }
+    
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(TestServer.class.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return self == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    default:
+                        return type.getSimpleName();
+                }
+            }
+            Object result = handler.handle(method, args != null ? args : new Object[0]);
+            return result != null ? result : defaultValue(method.getReturnType());
+        });
+        return type.cast(proxy);
+    }
+    
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
\ No newline at end of file
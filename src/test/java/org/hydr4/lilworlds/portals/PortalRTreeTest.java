@@ -0,0 +1,145 @@
+package org.hydr4.lilworlds.portals;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PortalRTreeTest {
+    
+    @Test
+    void insertedPortalsAreFound() {
+        List<Portal> portals = grid(20, 20);
+        PortalRTree tree = new PortalRTree();
+        for (Portal portal : portals) {
+            tree.insert(portal);
+        }
+        
+        assertEquals(portals.size(), tree.size());
+        for (Portal portal : portals) {
+            assertSame(portal, tree.findAt(portal.getMinX() + 1, portal.getMinY() + 1, portal.getMinZ() + 0.5, false));
+            // Between two portals of the grid
+            assertNull(tree.findAt(portal.getMaxX() + 3, portal.getMinY() + 1, portal.getMinZ(), false));
+        }
+    }
+    
+    @Test
+    void queryMatchesEveryIntersectingPortal() {
+        List<Portal> portals = grid(20, 20);
+        PortalRTree inserted = new PortalRTree();
+        for (Portal portal : portals) {
+            inserted.insert(portal);
+        }
+        PortalRTree loaded = PortalRTree.bulkLoad(portals);
+        
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            double x = random.nextDouble() * 220 - 10;
+            double z = random.nextDouble() * 220 - 10;
+            double size = random.nextDouble() * 40;
+            Set<Portal> expected = intersecting(portals, x, 60, z, x + size, 70, z + size);
+            assertEquals(expected, query(inserted, x, 60, z, x + size, 70, z + size, false));
+            assertEquals(expected, query(loaded, x, 60, z, x + size, 70, z + size, false));
+        }
+    }
+    
+    @Test
+    void removedPortalsAreGone() {
+        List<Portal> portals = grid(20, 20);
+        PortalRTree tree = PortalRTree.bulkLoad(portals);
+        
+        List<Portal> kept = new ArrayList<>();
+        for (int i = 0; i < portals.size(); i++) {
+            Portal portal = portals.get(i);
+            if (i % 3 == 0) {
+                kept.add(portal);
+            } else {
+                assertTrue(tree.remove(portal));
+            }
+        }
+        assertFalse(tree.remove(portals.get(1)));
+        assertEquals(kept.size(), tree.size());
+        
+        for (int i = 0; i < portals.size(); i++) {
+            Portal portal = portals.get(i);
+            Portal found = tree.findAt(portal.getMinX() + 1, portal.getMinY() + 1, portal.getMinZ() + 0.5, false);
+            assertEquals(i % 3 == 0 ? portal : null, found);
+        }
+        assertEquals(new HashSet<>(kept), query(tree, -1000, -1000, -1000, 1000, 1000, 1000, false));
+        
+        for (Portal portal : kept) {
+            assertTrue(tree.remove(portal));
+        }
+        assertTrue(tree.isEmpty());
+        assertNull(tree.findAt(1, 65, 0.5, false));
+    }
+    
+    @Test
+    void disabledPortalsAreSkipped() {
+        List<Portal> portals = grid(10, 10);
+        PortalRTree tree = new PortalRTree();
+        Set<Portal> enabled = new HashSet<>();
+        for (int i = 0; i < portals.size(); i++) {
+            Portal portal = i % 2 == 0 ? portals.get(i) : disabled(portals.get(i));
+            tree.insert(portal);
+            if (portal.isEnabled()) {
+                enabled.add(portal);
+            }
+            assertSame(portal, tree.findAt(portal.getMinX() + 1, portal.getMinY() + 1, portal.getMinZ() + 0.5, false));
+            assertEquals(portal.isEnabled() ? portal : null,
+                tree.findAt(portal.getMinX() + 1, portal.getMinY() + 1, portal.getMinZ() + 0.5, true));
+        }
+        assertEquals(enabled, query(tree, -1000, -1000, -1000, 1000, 1000, 1000, true));
+    }
+    
+    /**
+     * Portal regions 10 blocks apart on both axes
+     */
+    private static List<Portal> grid(int columns, int rows) {
+        List<Portal> portals = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                double x = i * 10;
+                double z = j * 10;
+                portals.add(new Portal("portal-" + i + "-" + j, new Location(null, x, 64, z), new Location(null, x + 2, 66, z + 1),
+                    "world_nether", new Location(null, x, 64, z), Material.OBSIDIAN, Portal.PortalType.CUSTOM));
+            }
+        }
+        return portals;
+    }
+    
+    private static Portal disabled(Portal portal) {
+        return new Portal(portal.getName(), portal.getLocation1(), portal.getLocation2(), portal.getDestinationWorld(),
+            portal.getDestinationLocation(), portal.getFrameMaterial(), portal.getType(), false);
+    }
+    
+    private static Set<Portal> intersecting(List<Portal> portals, double minX, double minY, double minZ,
+                                            double maxX, double maxY, double maxZ) {
+        Set<Portal> result = new HashSet<>();
+        for (Portal portal : portals) {
+            if (portal.getMinX() <= maxX && portal.getMaxX() >= minX && portal.getMinY() <= maxY && portal.getMaxY() >= minY
+                    && portal.getMinZ() <= maxZ && portal.getMaxZ() >= minZ) {
+                result.add(portal);
+            }
+        }
+        return result;
+    }
+    
+    private static Set<Portal> query(PortalRTree tree, double minX, double minY, double minZ,
+                                     double maxX, double maxY, double maxZ, boolean enabledOnly) {
+        Set<Portal> result = new HashSet<>();
+        tree.query(minX, minY, minZ, maxX, maxY, maxZ, enabledOnly, result::add);
+        return result;
+    }
+}
\ No newline at end of file